@@ -12,10 +12,13 @@
 // no help received
 //
 /////////////////////////////// 80 COLUMNS WIDE ////////////////////////////////
-import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 
 /**
  * This class implements the methods from the BackendInterface class to find the 
@@ -24,97 +27,368 @@ import java.util.*;
  */
 public class Backend implements BackendInterface{
     private GraphADT<String, Double> graph; 
+    //largest number of locations that all walking times are precomputed for
+    private int matrixNodeLimit;
+    //walking times between every pair of locations, or null when there are too many locations
+    private DistanceMatrix<String> matrix = null;
+    //whether maps without a distance matrix are contracted into a hierarchy when they are loaded
+    private boolean useHierarchy = false;
+    //the loaded map contracted into a hierarchy, or null when there is no such hierarchy
+    private ContractionHierarchy<String> hierarchy = null;
+    //how the graph searches for shortest paths, or null to leave the graph's own mode alone
+    private DijkstraGraph.SearchMode searchMode = null;
+    //number of landmarks that are prepared for ALT searches each time a map is loaded
+    private static final int LANDMARK_COUNT = 8;
+    //receives progress reports while a distance matrix is built, or null
+    private Consumer<String> matrixProgress;
+    //recently found shortest paths, keyed by their start and end locations, or null
+    private volatile ResultCache<List<String>, ShortestPath<String>> pathCache = null;
+    //every location in the loaded map, which is listed once per load instead of once per request
+    private List<String> locations = null;
+    //describes how quickly the last map was read
+    private String loadReport = null;
+    //the mapped snapshot that queries are answered from, or null when the map was parsed into graph
+    private GraphSnapshot snapshot = null;
+    //the dot file that the map was last parsed from, with its length and modification time
+    //when it was parsed, which a snapshot of the map records, or null
+    private String sourceFile = null;
+    private long sourceLength;
+    private long sourceModified;
 
+    /**
+     * constructor for this class, which can only load snapshots written by writeSnapshot. A
+     * snapshot is queried where it is mapped, so this backend never needs a graph of its own,
+     * which spares programs that answer a single request from building one.
+     */
+    public Backend(){
+        this(null);
+    }
     /**
      * constructor for this class
      * @param graph the graph used to store and process location and walking time data
      */
     public Backend(GraphADT<String, Double> graph){
+        this(graph, 0);
+    }
+    /**
+     * constructor for this class, which can precompute the walking times between every pair
+     * of locations when data is loaded. After that, shortest paths and closest destinations
+     * are looked up instead of searched for, but the tables this needs grow with the square
+     * of the number of locations, so larger maps are still searched on demand.
+     * @param graph the graph used to store and process location and walking time data
+     * @param matrixNodeLimit the most locations a map may have for its walking times to be
+     *        precomputed, or 0 to always search on demand
+     */
+    public Backend(GraphADT<String, Double> graph, int matrixNodeLimit){
+        this(graph, matrixNodeLimit, null);
+    }
+    /**
+     * constructor for this class, which precomputes walking times like the one above and
+     * reports on its progress while it does. The walking times from different locations are
+     * computed on different threads, one per available processor.
+     * @param graph the graph used to store and process location and walking time data
+     * @param matrixNodeLimit the most locations a map may have for its walking times to be
+     *        precomputed, or 0 to always search on demand
+     * @param matrixProgress receives progress reports from any thread while walking times are
+     *        precomputed, or null for no reports
+     */
+    public Backend(GraphADT<String, Double> graph, int matrixNodeLimit, Consumer<String> matrixProgress){
         this.graph = graph;
+        this.matrixNodeLimit = matrixNodeLimit;
+        this.matrixProgress = matrixProgress;
     }
     /**
      * This method adds locations and walking times to the graph data structure. 
      * Buildings are the nodes and the walking times are the edges.
      * @param filename name of the file that the program would read
-     * @throws IOException if the file cannot be read
+     * @throws IOException if the file cannot be read, or is a dot file and this backend has
+     *         no graph to load it into
      */
     @Override
     public void loadGraphData(String filename) throws IOException{
-        for(String node : new ArrayList<>(graph.getAllNodes())){
-            graph.removeNode(node); //remove all nodes and edges
+        //paths cached for the previous map may no longer be the shortest ones
+        ResultCache<List<String>, ShortestPath<String>> cache = pathCache;
+        if(cache != null){
+            cache.clear();
         }
-        Scanner scanner = null;
-
-        try{
-            scanner = new Scanner(new File(filename));
-
-            while(scanner.hasNextLine()){
-                String line = scanner.nextLine().trim();
-                if(line.contains("->") && line.contains("[seconds=")){
-                    //extracting source node
-                    //example: "Memorial Union" -> "Science Hall" [seconds=105.8];
-        
-                    int firstQuote = line.indexOf('"');//first quote at index 0
-                    int secondQuote = line.indexOf('"', firstQuote + 1); // finds the second quote (end of "Memorial Union")
-                    //storing the name between the quotes that were just extracted
-                    String sourceLocation = line.substring(firstQuote + 1, secondQuote);//+1 allows us to avoid using "
-
-                    //extracting target node
-                    int thirdQuote = line.indexOf('"', secondQuote + 1);// finds the next quote (start of "Science Hall")
-                    int fourthQuote = line.indexOf('"', thirdQuote + 1); // finds the closing quote for "Science Hall"
-                    String destinationLocation = line.substring(thirdQuote + 1, fourthQuote);
-                    //extracting weight
-                    int secondsStartIndex = line.indexOf("seconds=") + "seconds=".length();
-                    int semicolonIndex = line.indexOf(";", secondsStartIndex);
-                    String secondsString = line.substring(secondsStartIndex, semicolonIndex).trim();
-                    if (secondsString.endsWith("]")) {
-                        secondsString = secondsString.substring(0, secondsString.length() - 1);
-                    }
-                    double travelTimeInSeconds;
-                    try {
-                        travelTimeInSeconds = Double.parseDouble(secondsString);
-                    } catch (NumberFormatException nfe){
-                        throw new IOException("Invalid time format in line: \"" + line + "\"", nfe);
-                    }//newly updated
-                    //insert to graph
-                    graph.insertNode(sourceLocation);
-                    graph.insertNode(destinationLocation);
-                    graph.insertEdge(sourceLocation, destinationLocation, travelTimeInSeconds);
-                    
-                }
+        if(graph != null){
+            for(String node : new ArrayList<>(graph.getAllNodes())){
+                graph.removeNode(node); //remove all nodes and edges
             }
-        } catch (FileNotFoundException fnfe) { //added to complete the try-catch blocked used for the method
-            throw new IOException("Error reading graph data from file");
-        } finally {
-            if(scanner != null){
-                scanner.close();
+        }
+        matrix = null;
+        hierarchy = null;
+        locations = null;
+        snapshot = null;
+        sourceFile = null;
+        //a snapshot is mapped and queried where it lies, so nothing is inserted into the graph
+        if(GraphSnapshot.isSnapshot(filename)){
+            snapshot = new GraphSnapshot(filename);
+            loadReport = snapshot.getReport();
+            locations = Collections.unmodifiableList(snapshot.getAllNodes());
+            return;
+        }
+        if(graph == null){
+            throw new IOException(filename + " is not a snapshot, and there is no graph to load it into");
+        }
+        //recorded before parsing, so that a change made while parsing makes snapshots look stale
+        Path path = Paths.get(filename);
+        try{
+            sourceLength = Files.size(path);
+            sourceModified = Files.getLastModifiedTime(path).toMillis();
+        } catch (NoSuchFileException nsfe) {
+            throw new IOException("Error reading graph data from file", nsfe);
+        }
+        //the parser numbers each location as it first appears, and lists every edge by those
+        //numbers, which a distance matrix can also be built from
+        DotFileParser parsed;
+        try{
+            parsed = new DotFileParser(filename);
+        } catch (NoSuchFileException nsfe) {
+            throw new IOException("Error reading graph data from file", nsfe);
+        }
+        List<String> names = parsed.getNames();
+        int[] sources = parsed.getSources();
+        int[] destinations = parsed.getTargets();
+        double[] times = parsed.getWeights();
+        for(String name : names){
+            graph.insertNode(name);
+        }
+        for(int i = 0; i < parsed.getEdgeCount(); i++){
+            graph.insertEdge(names.get(sources[i]), names.get(destinations[i]), times[i]);
+        }
+        loadReport = parsed.getReport();
+        sourceFile = filename;
+        List<String> loaded = new ArrayList<>(graph.getNodeCount());
+        for(String location : graph.allNodes()){
+            loaded.add(location);
+        }
+        locations = Collections.unmodifiableList(loaded);
+        if(graph.getNodeCount() > 0 && graph.getNodeCount() <= matrixNodeLimit){
+            matrix = buildDistanceMatrix(parsed);
+        } else if(useHierarchy){
+            hierarchy = new ContractionHierarchy<>((DijkstraGraph<String, Double>) graph);
+        }
+        prepareSearch();
+    }
+    /**
+     * This helper method prepares the landmarks that ALT searches need, which loading a map
+     * discards, when the graph is what queries are answered from.
+     * @return a report on preparing the landmarks, or null when none were prepared
+     */
+    private String prepareSearch(){
+        if(searchMode != DijkstraGraph.SearchMode.ALT || matrix != null || hierarchy != null
+                || snapshot != null || graph.getNodeCount() == 0){
+            return null;
+        }
+        return ((DijkstraGraph<String, Double>) graph).prepareLandmarks(LANDMARK_COUNT);
+    }
+    /**
+     * This helper method precomputes the walking times between every pair of locations, from
+     * the edges that were just loaded into the graph.
+     * @param parsed the locations and edges read from the map's file
+     * @return a distance matrix with the same locations and edges as the graph
+     */
+    private DistanceMatrix<String> buildDistanceMatrix(DotFileParser parsed){
+        MapADT<String, Integer> ids = new HashtableMap<>();
+        for(int i = 0; i < locations.size(); i++){
+            ids.put(locations.get(i), i);
+        }
+        //the matrix lists locations in the graph's order rather than the file's
+        List<String> names = parsed.getNames();
+        int[] column = new int[names.size()];
+        for(int i = 0; i < names.size(); i++){
+            column[i] = ids.get(names.get(i));
+        }
+        int edgeCount = parsed.getEdgeCount();
+        int[] sourceIds = new int[edgeCount];
+        int[] destinationIds = new int[edgeCount];
+        for(int i = 0; i < edgeCount; i++){
+            sourceIds[i] = column[parsed.getSources()[i]];
+            destinationIds[i] = column[parsed.getTargets()[i]];
+        }
+        return new DistanceMatrix<>(locations, sourceIds, destinationIds, parsed.getWeights(),
+                edgeCount, Runtime.getRuntime().availableProcessors(), matrixProgress);
+    }
+    /**
+     * This method writes the locations and walking times that were last loaded into a binary
+     * snapshot file. Passing that file to loadGraphData afterwards maps it into memory rather
+     * than parsing it, which is much quicker for programs that only answer a single request.
+     * When every walking time was precomputed for the map, the snapshot includes those as well,
+     * so that the programs which map it look routes up instead of searching for them. The
+     * snapshot records the dot file that the map was loaded from, which GraphSnapshot.isCurrent
+     * checks to tell whether that file has changed since.
+     * @param filename name of the snapshot file to create or replace
+     * @throws IOException if the file cannot be written, or the dot file has changed since the
+     *         map was loaded from it
+     * @throws IllegalStateException if the loaded map was itself read from a snapshot, or the
+     *         graph is not one that a snapshot can be built from
+     */
+    public void writeSnapshot(String filename) throws IOException{
+        CompactGraph<String> compact;
+        if(matrix != null){
+            compact = matrix; //its arrays already list locations in the graph's order
+        } else if(snapshot == null && graph instanceof DijkstraGraph){
+            compact = new CompactGraph<>((DijkstraGraph<String, Double>) graph);
+        } else {
+            throw new IllegalStateException("Only a map that was parsed into a graph can be snapshot");
+        }
+        GraphSnapshot.Source source = null;
+        if(sourceFile != null){
+            source = GraphSnapshot.Source.of(sourceFile);
+            if(source.length != sourceLength || source.modified != sourceModified){
+                throw new IOException(sourceFile + " has changed since it was loaded");
             }
         }
+        GraphSnapshot.write(compact, filename, source);
+    }
+    /**
+     * This method describes how many locations and walking times the last map had, and how
+     * many megabytes of its file were read per second.
+     * @return a report on loading the map, or null if no map has been loaded
+     */
+    public String getLoadReport(){
+        return loadReport;
+    }
+    /**
+     * This method checks whether the walking times of the loaded map were precomputed, so
+     * that queries are answered from a distance matrix instead of by searching the graph.
+     * @return true if a distance matrix is in use, false otherwise
+     */
+    public boolean isUsingDistanceMatrix(){
+        return matrix != null;
+    }
+    /**
+     * This method contracts each map whose walking times are not precomputed into a hierarchy
+     * when it is loaded, including the map that is loaded already. Queries are then answered
+     * from that hierarchy, whose shortest path searches settle far fewer locations than those
+     * through the graph. Contracting a map takes far longer than one search, so this suits
+     * programs that answer many requests about large maps.
+     * @param use true to contract maps into a hierarchy, false to search the graph again
+     * @throws IllegalStateException if use is true, and the graph is not one that a hierarchy
+     *         can be built from
+     */
+    public void setUseContractionHierarchy(boolean use){
+        if(use && !(graph instanceof DijkstraGraph)){
+            throw new IllegalStateException("Only a map that is parsed into a graph can be contracted");
+        }
+        useHierarchy = use;
+        hierarchy = use && matrix == null && snapshot == null && graph.getNodeCount() > 0
+                ? new ContractionHierarchy<>((DijkstraGraph<String, Double>) graph) : null;
+    }
+    /**
+     * This method checks whether queries about the loaded map are answered from a contraction
+     * hierarchy instead of by searching the graph.
+     * @return true if a contraction hierarchy is in use, false otherwise
+     */
+    public boolean isUsingContractionHierarchy(){
+        return hierarchy != null;
+    }
+    /**
+     * This method chooses how the graph searches for shortest paths, for maps whose queries
+     * are not answered from a distance matrix or a contraction hierarchy. DIJKSTRA searches
+     * forward from the start, BIDIRECTIONAL also searches backward from the end, and ALT
+     * directs the search toward the end with landmarks, which this backend prepares again
+     * each time a map is loaded.
+     * @param mode the kind of search the graph runs
+     * @return a report on preparing landmarks for the loaded map, or null when none were
+     *         prepared
+     * @throws IllegalStateException if the graph is not one whose search mode can be chosen
+     */
+    public String setSearchMode(DijkstraGraph.SearchMode mode){
+        if(!(graph instanceof DijkstraGraph)){
+            throw new IllegalStateException("Only a map that is parsed into a graph can choose its search");
+        }
+        searchMode = mode;
+        ((DijkstraGraph<String, Double>) graph).setSearchMode(mode);
+        return prepareSearch();
+    }
+    /**
+     * This method keeps the shortest paths that are found in a cache, so that paths which are
+     * requested again are not searched for again. The cache is emptied whenever graph data is
+     * loaded.
+     * @param capacity the most paths to keep, or 0 to stop caching paths
+     * @param policy how a full cache chooses the path to evict
+     */
+    public void setPathCache(int capacity, ResultCache.Policy policy){
+        pathCache = capacity > 0 ? new ResultCache<>(capacity, policy) : null;
+    }
+    /**
+     * This method returns the cache that shortest paths are kept in, whose hit, miss, and
+     * eviction counts show how well it is working.
+     * @return the path cache, or null if paths are not being cached
+     */
+    public ResultCache<List<String>, ShortestPath<String>> getPathCache(){
+        return pathCache;
+    }
+    /**
+     * This helper method returns the graph that queries should be answered from: the distance
+     * matrix when one was built for the loaded map, the contraction hierarchy when one was built
+     * instead, the snapshot when the map was mapped from one, or else the graph itself.
+     */
+    private GraphADT<String, Double> routes(){
+        if(matrix != null){
+            return matrix;
+        }
+        if(hierarchy != null){
+            return hierarchy;
+        }
+        if(snapshot == null && graph == null){
+            throw new IllegalStateException("No snapshot has been loaded");
+        }
+        return snapshot != null ? snapshot : graph;
     }
     /**
-     * This method returns a list of all the building names on the map.
+     * This method returns a list of all the building names on the map. The list is made once
+     * when the map is loaded and shared by every caller afterwards, so it cannot be modified.
      */
     @Override
     public List<String> getListOfAllLocations(){
-        return graph.getAllNodes();
+        List<String> loaded = locations;
+        if(loaded != null){
+            return loaded;
+        }
+        return graph != null ? graph.getAllNodes() : List.of();
     }
     /**
-     * This method allows one to find the shortest walking path between two locations.
-     * It returns a list of buildings that one would see while walking between those two 
-     * locations. Uses Dijkstra's algorithm.
+     * This method finds the shortest walking path between two locations, along with the
+     * walking time of each leg and the total walking time. Everything is read from a single
+     * run of Dijkstra's algorithm, so no edges need to be looked up afterwards.
      * @param startLocation the beginning node
      * @param endLocation the end node
      */
     @Override
-    public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
-        if (!graph.containsNode(startLocation) || !graph.containsNode(endLocation)) {
+    public ShortestPath<String> findShortestPath(String startLocation, String endLocation) {
+        if (!routes().containsNode(startLocation) || !routes().containsNode(endLocation)) {
             throw new NoSuchElementException("Invalid start/end location: " + startLocation + " → " + endLocation);
         } //newly updated
+        ResultCache<List<String>, ShortestPath<String>> cache = pathCache;
+        List<String> key = List.of(startLocation, endLocation);
+        ShortestPath<String> path = cache != null ? cache.get(key) : null;
+        if (path != null) {
+            return path; // paths are immutable, so cached ones can be shared
+        }
         try {
-            return graph.shortestPathData(startLocation, endLocation);
+            path = routes().shortestPath(startLocation, endLocation);
         } catch (NoSuchElementException e) {
-            return new ArrayList<>(); // empty list is returned if there is no path
+            path = new ShortestPath<>(); // empty result is returned if there is no path
+        }
+        if (cache != null) {
+            cache.put(key, path);
         }
+        return path;
+    }
+    /**
+     * This method allows one to find the shortest walking path between two locations.
+     * It returns a list of buildings that one would see while walking between those two 
+     * locations. Uses Dijkstra's algorithm.
+     * @param startLocation the beginning node
+     * @param endLocation the end node
+     */
+    @Override
+    public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
+        // empty list is returned if there is no path
+        return new ArrayList<>(findShortestPath(startLocation, endLocation).getNodes());
     }
     /**
      * Similar to the method above, this calculates the shortest path but returns the walking 
@@ -124,24 +398,8 @@ public class Backend implements BackendInterface{
      */
     @Override
     public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
-        if (!graph.containsNode(startLocation) || !graph.containsNode(endLocation)) {
-            throw new NoSuchElementException("Invalid start/end location: " + startLocation + " → " + endLocation);
-        } //newly updated
-        List<String> path = findLocationsOnShortestPath(startLocation, endLocation);
-        List<Double> weights = new ArrayList<>();
-
-        if (path.size() < 2) return weights;
-
-        for (int i = 0; i < path.size() - 1; i++) {
-            try {
-                weights.add(graph.getEdge(path.get(i), path.get(i + 1)));
-            } catch (NoSuchElementException e) {
-                return new ArrayList<>(); // broken path
-            }
-        }
-
-
-        return weights;
+        // empty list is returned if there is no path
+        return new ArrayList<>(findShortestPath(startLocation, endLocation).getLegs());
     }
     /**
      * This method finds 10 locations that are closest to the starting point based on shortest paths.
@@ -149,45 +407,43 @@ public class Backend implements BackendInterface{
      */
     @Override
     public List<String> getTenClosestDestinations(String startLocation) throws NoSuchElementException {
+        return getClosestDestinations(startLocation, 10);
+    }
+    /**
+     * This method finds the k locations that are closest to the starting point based on shortest paths.
+     * A single Dijkstra search from the start location settles destinations in order of walking time,
+     * so this costs one search instead of one search per location in the graph.
+     * @param startLocation the beginning node
+     * @param k the maximum number of destinations to return
+     */
+    @Override
+    public List<String> getClosestDestinations(String startLocation, int k) throws NoSuchElementException {
         //check if the input is valid, throw an error
-        if (!graph.containsNode(startLocation)) {
+        if (!routes().containsNode(startLocation)) {
             throw new NoSuchElementException("Start location invalid/not found.");
         }
-
-        //hashmap to store reachable destinations
-        //the key in the hashmap stores the destination node name and the value (denoted by cost) stores the total walking time in seconds
-        Map<String, Double> reachable = new HashMap<>();
-        //loop throgh all nodes in the graph
-        for (String node : graph.getAllNodes()) {
-            //skip the start location, we just want the closest destinations
-            if (!node.equals(startLocation)) {
-                try {
-                    //using Dijkstra's algo
-                    //compute the time from start location to the node
-                    double cost = graph.shortestPathCost(startLocation, node);
-                    //add it to the hashmap
-                    reachable.put(node, cost);
-                } catch (NoSuchElementException e) {
-                    // skip unreachable nodes
-                }
-            }
-        }
-        //if the destination is not reachable, throw an error
-        if (reachable.isEmpty()) {
+        //destinations come back sorted by walking time, closest first
+        List<String> closest = routes().closestNodes(startLocation, k);
+        //if no destination is reachable, throw an error
+        if (closest.isEmpty()) {
             throw new NoSuchElementException("No reachable destinations");
         }
-        //process the hashmap:
-        //1)reachable.entrySet() gets all (node,cost) pairs
-        //2).stream() lets us process them
-        //3).sorted() sorts them by coset(which is the value of the pair) so the lowest cost would be the closest
-        //4).limit(10) limits it to the 10 closest values only
-        //5).map() extracts the keys of the closest values
-        //.toList() collects the result of 10 closest as a List<String>
-        return reachable.entrySet().stream()
-                .sorted(Map.Entry.comparingByValue()) //sorts the cost in ascending order
-                .limit(10)
-                .map(Map.Entry::getKey) //this extracts the destinaton name only
-                .toList();
+        return closest;
+    }
+    /**
+     * This method finds every location that can be reached from the starting point within
+     * the given walking time. The search stops once its frontier passes that time, so it only
+     * explores the part of the campus that is actually reachable.
+     * @param startLocation the beginning node
+     * @param seconds the longest walking time a destination may have
+     */
+    @Override
+    public Map<String, Double> getDestinationsWithinTime(String startLocation, double seconds) throws NoSuchElementException {
+        //check if the input is valid, throw an error
+        if (!routes().containsNode(startLocation)) {
+            throw new NoSuchElementException("Start location invalid/not found.");
+        }
+        return routes().nodesWithinCost(startLocation, seconds);
     }
 
 
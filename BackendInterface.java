@@ -1,5 +1,6 @@
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -40,6 +41,19 @@ public interface BackendInterface {
    */
   public List<String> findLocationsOnShortestPath(String startLocation, String endLocation);
 
+  /**
+   * Return the shortest path from startLocation to endLocation as a single
+   * result holding the locations along it, the walking time in seconds of
+   * each leg, and the total walking time, or an empty result if no such path
+   * exists.  This only requires a single shortest path search.
+   * @param startLocation the start location of the path
+   * @param endLocation the end location of the path
+   * @return the locations, walking times, and total walking time along the
+   *         shortest path from startLocation to endLocation, or an empty 
+   *         result if no such path exists
+   */
+  public ShortestPath<String> findShortestPath(String startLocation, String endLocation);
+
   /**
    * Return the walking times in seconds between each two nodes on the 
    * shortest path from startLocation to endLocation, or an empty list of no 
@@ -62,4 +76,27 @@ public interface BackendInterface {
    */
   public List<String> getTenClosestDestinations(String startLocation) throws NoSuchElementException;
 
+  /**
+   * Returns a list of the k closest destinations that can be reached most
+   * quickly when starting from the specified startLocation, closest first.
+   * @param startLocation the location to find the closest destinations from
+   * @param k the maximum number of destinations to return
+   * @return the k closest destinations from the specified startLocation
+   * @throws NoSuchElementException if startLocation does not exist, or if
+   *         there are no other locations that can be reached from there
+   */
+  public List<String> getClosestDestinations(String startLocation, int k) throws NoSuchElementException;
+
+  /**
+   * Returns every destination that can be reached from the specified
+   * startLocation within the given number of seconds, mapped to its walking
+   * time in seconds and ordered from the closest to the farthest.
+   * @param startLocation the location to measure walking times from
+   * @param seconds the longest walking time that a destination may have
+   * @return map from each reachable destination to its walking time, which
+   *         is empty if no other location can be reached in time
+   * @throws NoSuchElementException if startLocation does not exist
+   */
+  public Map<String, Double> getDestinationsWithinTime(String startLocation, double seconds) throws NoSuchElementException;
+
 }
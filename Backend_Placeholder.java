@@ -1,4 +1,5 @@
 import java.util.List;
+import java.util.Map;
 import java.util.ArrayList;
 import java.io.IOException;
 import java.util.NoSuchElementException;
@@ -32,6 +33,10 @@ public class Backend_Placeholder implements BackendInterface {
     return graph.shortestPathData(startLocation,endLocation);
   }
 
+  public ShortestPath<String> findShortestPath(String startLocation, String endLocation) {
+    return graph.shortestPath(startLocation,endLocation);
+  }
+
   // returns list of increasing values
   public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
     List<String> locations = graph.shortestPathData(startLocation,endLocation);
@@ -45,4 +50,14 @@ public class Backend_Placeholder implements BackendInterface {
     return graph.getAllNodes();
   }
 
+  // returns list of all locations
+  public List<String> getClosestDestinations(String startLocation, int k) throws NoSuchElementException {
+    return graph.getAllNodes();
+  }
+
+  // returns whatever the placeholder graph reports as reachable
+  public Map<String, Double> getDestinationsWithinTime(String startLocation, double seconds) throws NoSuchElementException {
+    return graph.nodesWithinCost(startLocation, seconds);
+  }
+
 }
@@ -1,30 +1,50 @@
+import java.util.ArrayList;
 import java.util.List;
-import java.util.LinkedList;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This BaseGraph class contains stores a set of nodes, along with a set of
  * directed and weighted edges connecting those nodes.
+ * <p>
+ * Methods that change the graph hold its lock, so they run one at a time.
+ * Methods that only read it take no lock, and may run alongside a change when
+ * the nodes are stored in a ConcurrentHashtableMap: edge lists are then
+ * replaced by a new copy on every change, so a search that is walking one
+ * keeps seeing the edges it started with. With any other map, edge lists are
+ * changed in place, so inserting an edge takes constant time.
  */
 public class BaseGraph<NodeType, EdgeType extends Number> {
 
-    // Each node contains unique data along with two lists of directed edges
+    // Each node contains unique data along with two lists of directed edges.
+    // Each node also has an int id that no other node in the graph has, so
+    // searches can keep their state in arrays indexed by id instead of maps
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        public final int id;
+        public List<Edge> edgesLeaving = newEdgeList();
+        public List<Edge> edgesEntering = newEdgeList();
 
-        public Node(NodeType data) {
+        public Node(NodeType data, int id) {
             this.data = data;
+            this.id = id;
         }
     }
 
     // Nodes can be retrieved from this map by their unique data
     protected MapADT<NodeType, Node> nodes = null;
 
+    // Edge lists are only copied on write when the graph can be read while it
+    // changes, since copying makes inserting d edges at a node take O(d^2)
+    private List<Edge> newEdgeList() {
+        if (nodes instanceof ConcurrentHashtableMap)
+            return new CopyOnWriteArrayList<>();
+        return new ArrayList<>();
+    }
+
     // Each edge contains data/weight, and two nodes that it connects
     protected class Edge {
-        public EdgeType data; // the weight or cost of this edge
+        public volatile EdgeType data; // the weight or cost of this edge
         public Node predecessor;
         public Node successor;
 
@@ -35,7 +55,14 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         }
     }
 
-    protected int edgeCount = 0;
+    protected volatile int edgeCount = 0;
+
+    // ids are handed out from 0 up and never reused, so a search that is
+    // running while a node is removed and another inserted cannot mistake the
+    // new node for the old one it kept state for. They start from 0 again
+    // once every node has been removed, as when a whole map is reloaded, so
+    // that arrays indexed by id do not keep growing with each reload
+    private volatile int idBound = 0;
     // Edges can be retrieved through the edge lists in either connected node
 
     /**
@@ -48,6 +75,16 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         this.nodes = map;
     }
 
+    /**
+     * Constructor for BaseGraph that provides the kind of map the graph uses.
+     * 
+     * @param maps creates the map the graph uses to map a data object to the
+     *        node object it is stored in
+     */
+    public BaseGraph(MapFactory maps) {
+        this(maps.<NodeType, Node>create());
+    }
+
     /**
      * Insert a new node into the graph.
      * 
@@ -56,10 +93,11 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         or false if this data is already in the graph
      * @throws NullPointerException if data is null
      */
-    public boolean insertNode(NodeType data) {
+    public synchronized boolean insertNode(NodeType data) {
         if (nodes.containsKey(data))
             return false; // throws NPE when data's null
-        nodes.put(data, new Node(data));
+        nodes.put(data, new Node(data, idBound));
+        idBound++;
         return true;
     }
 
@@ -72,7 +110,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false if that data value is not found in the graph
      * @throws NullPointerException if data is null
      */
-    public boolean removeNode(NodeType data) {
+    public synchronized boolean removeNode(NodeType data) {
         // remove this node from nodes collection
         if (!nodes.containsKey(data))
             return false; // throws NPE when data==null
@@ -83,6 +121,8 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         // remove all edges leaving neighboring nodes toward this one
         for (Edge edge : oldNode.edgesEntering)
             edge.predecessor.edgesLeaving.remove(edge);
+        if (nodes.getSize() == 0)
+            idBound = 0;
         return true;
     }
 
@@ -106,6 +146,30 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         return nodes.getKeys();
     }
 
+    /**
+     * Retrieves all node data from this graph as a view that walks the node
+     * map in place, so no list is built. Nodes must not be inserted or
+     * removed while this view is being iterated, unless the nodes are stored
+     * in a ConcurrentHashtableMap.
+     *
+     * @return iterable over all node data
+     */
+    public Iterable<NodeType> allNodes() {
+        return nodes::iterator;
+    }
+
+    /**
+     * Return one more than the largest id handed out to a node so far, which
+     * is the length of an array that can be indexed by every node's id.
+     * 
+     * @return the number of ids that have been handed out since the graph
+     *         was last empty, including those of nodes that have since been
+     *         removed
+     */
+    protected int getIdBound() {
+        return idBound;
+    }
+
     /**
      * Return the number of nodes in the graph
      * 
@@ -126,7 +190,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge could be inserted or updated, or
      *         false if the pred or succ data are not found in any graph nodes
      */
-    public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
+    public synchronized boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
         Node predNode = nodes.get(pred);
         Node succNode = nodes.get(succ);
@@ -155,7 +219,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge could be removed, or
      *         false if such an edge is not found in the graph
      */
-    public boolean removeEdge(NodeType pred, NodeType succ) {
+    public synchronized boolean removeEdge(NodeType pred, NodeType succ) {
         try {
             // when an edge exists
             Edge oldEdge = getEdgeHelper(pred, succ);
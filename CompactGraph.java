@@ -0,0 +1,461 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * This CompactGraph class is a frozen, read-optimized implementation of the
+ * GraphADT. Each node's data is interned to a dense int id, and the edges are
+ * stored in compressed sparse row (CSR) form: the edges leaving node i are at
+ * indexes offsets[i] through offsets[i+1]-1 of the parallel targets and
+ * weights arrays. Searches relax edges by walking these arrays in order,
+ * without following any list, Edge, or boxed weight references.
+ * <p>
+ * Since the layout cannot be changed after it is built, the methods that
+ * insert or remove nodes and edges throw UnsupportedOperationException.
+ *
+ * @param <NodeType> the data type stored at each graph node
+ */
+public class CompactGraph<NodeType> implements GraphADT<NodeType, Double> {
+
+    // maps each node's data to its id, and each id back to that node's data
+    protected MapADT<NodeType, Integer> ids;
+    protected List<NodeType> names;
+
+    // edges leaving node i are stored from offsets[i] up to offsets[i+1]
+    protected int[] offsets;
+    protected int[] targets;
+    protected double[] weights;
+
+    // number of children per entry in the heap that searches queue nodes in
+    private int heapArity = 4;
+
+    /**
+     * Creates a compact copy of the nodes and edges currently in a graph.
+     * Later changes to that graph are not reflected in this one.
+     *
+     * @param graph the graph to copy nodes and edges from
+     */
+    public <EdgeType extends Number> CompactGraph(BaseGraph<NodeType, EdgeType> graph) {
+        List<NodeType> names = graph.getAllNodes();
+        MapADT<NodeType, Integer> ids = new HashtableMap<>();
+        for (int i = 0; i < names.size(); i++)
+            ids.put(names.get(i), i);
+        int[] sources = new int[graph.getEdgeCount()];
+        int[] targets = new int[sources.length];
+        double[] weights = new double[sources.length];
+        int edge = 0;
+        for (int i = 0; i < names.size(); i++) {
+            for (BaseGraph<NodeType, EdgeType>.Edge e : graph.nodes.get(names.get(i)).edgesLeaving) {
+                sources[edge] = i;
+                targets[edge] = ids.get(e.successor.data);
+                weights[edge] = e.data.doubleValue();
+                edge++;
+            }
+        }
+        build(names, ids, sources, targets, weights, edge);
+    }
+
+    /**
+     * Creates a compact graph directly from a list of edges, such as those
+     * read by a dot file loader, without building a BaseGraph first. Edge i
+     * leads from the node at index sources[i] of names to the node at index
+     * targets[i], and has weight weights[i]. When the same edge is listed more
+     * than once, the weight that is listed last is used, just like repeated
+     * calls to insertEdge.
+     *
+     * @param names     the data of every node, in order of their ids
+     * @param sources   the id of the predecessor node of each edge
+     * @param targets   the id of the successor node of each edge
+     * @param weights   the positive weight of each edge
+     * @param edgeCount the number of edges stored in these arrays
+     * @throws IllegalArgumentException if names contains duplicate data
+     */
+    public CompactGraph(List<NodeType> names, int[] sources, int[] targets, double[] weights,
+                        int edgeCount) {
+        MapADT<NodeType, Integer> ids = new HashtableMap<>();
+        for (int i = 0; i < names.size(); i++)
+            ids.put(names.get(i), i);
+        build(new ArrayList<>(names), ids, sources, targets, weights, edgeCount);
+    }
+
+    // lays out the provided edge list in compressed sparse row form
+    private void build(List<NodeType> names, MapADT<NodeType, Integer> ids, int[] sources,
+                       int[] targets, double[] weights, int edgeCount) {
+        int nodeCount = names.size();
+        this.names = names;
+        this.ids = ids;
+
+        // count the edges leaving each node, then turn those counts into offsets
+        int[] offsets = new int[nodeCount + 1];
+        for (int i = 0; i < edgeCount; i++)
+            offsets[sources[i] + 1]++;
+        for (int i = 0; i < nodeCount; i++)
+            offsets[i + 1] += offsets[i];
+
+        // place each edge into the next free slot of its predecessor's row
+        int[] next = new int[nodeCount];
+        System.arraycopy(offsets, 0, next, 0, nodeCount);
+        int[] rowTargets = new int[edgeCount];
+        double[] rowWeights = new double[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            int slot = next[sources[i]]++;
+            rowTargets[slot] = targets[i];
+            rowWeights[slot] = weights[i];
+        }
+
+        // drop repeated edges within each row, keeping the last weight listed
+        int[] seenAt = new int[nodeCount];
+        Arrays.fill(seenAt, -1);
+        int kept = 0;
+        int rowStart = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            int rowEnd = offsets[i + 1];
+            offsets[i] = kept;
+            int firstKept = kept;
+            for (int e = rowStart; e < rowEnd; e++) {
+                int target = rowTargets[e];
+                if (seenAt[target] >= firstKept) {
+                    rowWeights[seenAt[target]] = rowWeights[e];
+                } else {
+                    seenAt[target] = kept;
+                    rowTargets[kept] = target;
+                    rowWeights[kept] = rowWeights[e];
+                    kept++;
+                }
+            }
+            rowStart = rowEnd;
+        }
+        offsets[nodeCount] = kept;
+        this.offsets = offsets;
+        this.targets = Arrays.copyOf(rowTargets, kept);
+        this.weights = Arrays.copyOf(rowWeights, kept);
+    }
+
+    /**
+     * Sets the arity of the indexed heap that later searches queue nodes in.
+     * Wider heaps are shallower, which makes lowering a node's cost cheaper.
+     *
+     * @param arity the number of children of each heap entry, at least 2
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public void setHeapArity(int arity) {
+        if (arity < 2)
+            throw new IllegalArgumentException("arity must be at least 2");
+        this.heapArity = arity;
+    }
+
+    /**
+     * Not supported, since the layout of a CompactGraph is frozen.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean insertNode(NodeType data) {
+        throw new UnsupportedOperationException("CompactGraph cannot be modified");
+    }
+
+    /**
+     * Not supported, since the layout of a CompactGraph is frozen.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean removeNode(NodeType data) {
+        throw new UnsupportedOperationException("CompactGraph cannot be modified");
+    }
+
+    /**
+     * Check whether the graph contains a node with the provided data.
+     *
+     * @param data the node contents to check for
+     * @return true if data item is stored in a node within the graph, or
+     *         false otherwise
+     */
+    public boolean containsNode(NodeType data) {
+        return ids.containsKey(data);
+    }
+
+    /**
+     * Retrieves a list of all node data from this graph, in order of id.
+     *
+     * @return list of all node data
+     */
+    public List<NodeType> getAllNodes() {
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * Retrieves all node data from this graph, in order of id, as a read-only
+     * view of the list that ids are assigned from.
+     *
+     * @return iterable over all node data
+     */
+    public Iterable<NodeType> allNodes() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Return the number of nodes in the graph
+     *
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return names.size();
+    }
+
+    /**
+     * Not supported, since the layout of a CompactGraph is frozen.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean insertEdge(NodeType pred, NodeType succ, Double weight) {
+        throw new UnsupportedOperationException("CompactGraph cannot be modified");
+    }
+
+    /**
+     * Not supported, since the layout of a CompactGraph is frozen.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean removeEdge(NodeType pred, NodeType succ) {
+        throw new UnsupportedOperationException("CompactGraph cannot be modified");
+    }
+
+    /**
+     * Check if edge is in the graph.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge is found in the graph, or false other
+     */
+    public boolean containsEdge(NodeType pred, NodeType succ) {
+        if (!ids.containsKey(pred) || !ids.containsKey(succ))
+            return false;
+        return findEdge(ids.get(pred), ids.get(succ)) >= 0;
+    }
+
+    /**
+     * Return the data associated with a specific edge.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the non-negative data from the edge between those nodes
+     * @throws NoSuchElementException if either node or the edge between them
+     *                                are not found within this graph
+     */
+    public Double getEdge(NodeType pred, NodeType succ) {
+        int edge = findEdge(ids.get(pred), ids.get(succ));
+        if (edge < 0)
+            throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
+                    succ.toString());
+        return weights[edge];
+    }
+
+    // returns the index of the edge from pred to succ, or -1 when there is none
+    private int findEdge(int pred, int succ) {
+        for (int e = offsets[pred]; e < offsets[pred + 1]; e++)
+            if (targets[e] == succ)
+                return e;
+        return -1;
+    }
+
+    /**
+     * Return the number of edges in the graph.
+     *
+     * @return the number of edges in the graph
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from the source node, recording the cost and
+     * predecessor of each node that is settled. Nodes wait in an indexed heap
+     * whose entries are lowered in place when a cheaper path to them is found,
+     * so the heap never holds more than one entry per node and relaxing an
+     * edge never allocates. The search stops once the
+     * target node is settled, once limit nodes other than the source have been
+     * settled, or once every remaining path costs more than maxCost.
+     *
+     * @param source  the id of the node to start searching from
+     * @param target  the id of the node to stop at, or -1 to not stop early
+     * @param limit   the most nodes other than source that may be settled
+     * @param maxCost the largest path cost that may be settled
+     * @param cost    filled with the cost of each settled node
+     * @param pred    filled with the predecessor id of each reached node
+     * @param order   filled with the ids of settled nodes, in order of cost
+     * @return the number of nodes stored into order
+     */
+    protected int computeShortestPaths(int source, int target, int limit, double maxCost,
+                                       double[] cost, int[] pred, int[] order) {
+        return computeShortestPaths(source, target, limit, maxCost, cost, pred, order,
+                new boolean[names.size()], createHeap());
+    }
+
+    /**
+     * Runs the same search as the method above, but keeps track of settled
+     * and queued nodes in the provided arrays instead of allocating its own.
+     * Callers that run many searches, one after another on the same thread,
+     * can reuse these for every search so that none of them allocate.
+     *
+     * @param source  the id of the node to start searching from
+     * @param target  the id of the node to stop at, or -1 to not stop early
+     * @param limit   the most nodes other than source that may be settled
+     * @param maxCost the largest path cost that may be settled
+     * @param cost    filled with the cost of each settled node
+     * @param pred    filled with the predecessor id of each reached node
+     * @param order   filled with the ids of settled nodes, in order of cost
+     * @param settled overwritten to mark which nodes have been settled
+     * @param heap    a heap from createHeap, which is left empty afterwards
+     * @return the number of nodes stored into order
+     */
+    protected int computeShortestPaths(int source, int target, int limit, double maxCost,
+                                       double[] cost, int[] pred, int[] order,
+                                       boolean[] settled, IndexedMinHeap heap) {
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(pred, -1);
+        Arrays.fill(settled, false);
+        heap.clear();
+        cost[source] = 0.0;
+        heap.insertOrDecrease(source, 0.0);
+        int count = 0;
+
+        while (!heap.isEmpty()) {
+            int node = heap.removeMin();
+            settled[node] = true;
+            if (node != source) {
+                if (count == limit) break;
+                order[count++] = node;
+            }
+            if (node == target) break;
+            // relax every edge in this node's row of the adjacency arrays
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int succ = targets[e];
+                double newCost = cost[node] + weights[e];
+                if (!settled[succ] && newCost < cost[succ] && newCost <= maxCost) {
+                    cost[succ] = newCost;
+                    pred[succ] = node;
+                    heap.insertOrDecrease(succ, newCost);
+                }
+            }
+        }
+        heap.clear();
+        return count;
+    }
+
+    /**
+     * Creates an empty heap with room for every node of this graph, using the
+     * arity that searches of this graph are set to queue nodes with.
+     *
+     * @return a new heap that can be passed to computeShortestPaths
+     */
+    protected IndexedMinHeap createHeap() {
+        return new IndexedMinHeap(names.size(), heapArity);
+    }
+
+    /**
+     * Returns the nodes, edge weights, and cost of the shortest path from the
+     * node containing the start data to the node containing the end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes, edge weights, and cost of this shortest path
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        int source = ids.get(start);
+        int target = ids.get(end);
+        double[] cost = new double[names.size()];
+        int[] pred = new int[names.size()];
+        computeShortestPaths(source, target, names.size(), Double.POSITIVE_INFINITY, cost, pred,
+                new int[names.size()]);
+        if (cost[target] == Double.POSITIVE_INFINITY)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+
+        ArrayList<NodeType> path = new ArrayList<>();
+        ArrayList<Double> legs = new ArrayList<>();
+        for (int i = target; i != source; i = pred[i]) {
+            path.add(names.get(i));
+            // rows are short and contiguous, so finding each leg's weight is a quick scan
+            legs.add(weights[findEdge(pred[i], i)]);
+        }
+        path.add(start);
+        Collections.reverse(path);
+        Collections.reverse(legs);
+        return new ShortestPath<>(path, legs, cost[target]);
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path
+     * from the node with the provided start value through the node with the
+     * provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        return new ArrayList<>(shortestPath(start, end).getNodes());
+    }
+
+    /**
+     * Returns the cost of the path (sum over edge weights) of the shortest
+     * path from the node containing the start data to the node containing the
+     * end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return shortestPath(start, end).getCost();
+    }
+
+    /**
+     * Returns the data of the k nodes that are cheapest to reach from the
+     * start node, ordered from closest to farthest.
+     *
+     * @param start the data item in the starting node for the search
+     * @param k     the maximum number of destinations to return
+     * @return list of data items from the k closest nodes (excluding start)
+     * @throws NoSuchElementException if the start node cannot be found
+     */
+    public List<NodeType> closestNodes(NodeType start, int k) {
+        int[] order = new int[names.size()];
+        int count = computeShortestPaths(ids.get(start), -1, k, Double.POSITIVE_INFINITY,
+                new double[names.size()], new int[names.size()], order);
+        ArrayList<NodeType> closest = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            closest.add(names.get(order[i]));
+        return closest;
+    }
+
+    /**
+     * Returns the data of every node that can be reached from the start node
+     * by a path costing at most maxCost, mapped to that path's cost and
+     * ordered from closest to farthest.
+     *
+     * @param start   the data item in the starting node for the search
+     * @param maxCost the largest path cost that a returned node may have
+     * @return map from the data of each reachable node (excluding start) to
+     *         the cost of its shortest path
+     * @throws NoSuchElementException if the start node cannot be found
+     */
+    public Map<NodeType, Double> nodesWithinCost(NodeType start, double maxCost) {
+        double[] cost = new double[names.size()];
+        int[] order = new int[names.size()];
+        int count = computeShortestPaths(ids.get(start), -1, names.size(), maxCost, cost,
+                new int[names.size()], order);
+        LinkedHashMap<NodeType, Double> reachable = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++)
+            reachable.put(names.get(order[i]), cost[order[i]]);
+        return reachable;
+    }
+}
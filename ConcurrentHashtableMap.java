@@ -0,0 +1,385 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * A MapADT that many threads can read and write at once. Each table index
+ * holds a chain of immutable entries, so a reader that loads a chain sees it
+ * whole, and lookups never take a lock. Writers lock one of a fixed number
+ * of stripes, chosen by the low bits of the key's hash, and then publish a
+ * new head for the chain they changed. Removing a key copies the entries
+ * ahead of it rather than unlinking it in place.
+ * <p>
+ * The table grows one stripe at a time. The chains of a stripe's indexes are
+ * copied into a table twice as large while only that stripe is locked, and
+ * then each old index is replaced by a forwarding entry that sends readers
+ * and writers on to the new table. Writers to other stripes keep going
+ * while a stripe is copied, and readers are never blocked. Since the
+ * capacity is a multiple of the number of stripes, an index and the two
+ * indexes it splits into always belong to the same stripe.
+ * <p>
+ * Traversals through iterator, forEachEntry, and getKeys are weakly
+ * consistent: they see every key that was present for the whole traversal,
+ * and may or may not see keys that are put or removed while it runs.
+ *
+ * @param <KeyType>   Datatype for the Key
+ * @param <ValueType> Datatype that the key maps to
+ */
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    // number of write locks, which the capacity is always a multiple of so
+    // that every key of a table index is guarded by the same lock
+    private static final int STRIPES = 16;
+
+    // one entry of a chain, which is never changed once it is published
+    private static class Entry<KeyType, ValueType> {
+        final KeyType key;
+        final ValueType value;
+        final int hash;
+        final Entry<KeyType, ValueType> next;
+
+        Entry(KeyType key, ValueType value, int hash, Entry<KeyType, ValueType> next) {
+            this.key = key;
+            this.value = value;
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    // takes the place of each index of a table whose chains have been copied
+    // into a larger table, which the index's keys are found in instead
+    private static class Forward<KeyType, ValueType> extends Entry<KeyType, ValueType> {
+        final AtomicReferenceArray<Entry<KeyType, ValueType>> table;
+
+        Forward(AtomicReferenceArray<Entry<KeyType, ValueType>> table) {
+            super(null, null, 0, null);
+            this.table = table;
+        }
+    }
+
+    private volatile AtomicReferenceArray<Entry<KeyType, ValueType>> table;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    // held by the one thread that is growing the table, and by clear
+    private final ReentrantLock resizeLock = new ReentrantLock();
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Creates an empty map that can hold at least the given number of keys
+     * before it needs to grow.
+     *
+     * @param expectedSize the number of keys expected to be stored
+     */
+    public ConcurrentHashtableMap(int expectedSize) {
+        int capacity = 64;
+        while (capacity * 0.75 < expectedSize)
+            capacity <<= 1;
+        table = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < STRIPES; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    /**
+     * Creates an empty map with the default capacity of 64.
+     */
+    public ConcurrentHashtableMap() {
+        this(0);
+    }
+
+    // mixes the high bits of a hash code into the low bits used for indexes
+    private static int spread(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // returns the entry for key in the current table, without locking
+    private Entry<KeyType, ValueType> find(KeyType key) {
+        if (key == null) return null;
+        int hash = spread(key);
+        AtomicReferenceArray<Entry<KeyType, ValueType>> current = table;
+        Entry<KeyType, ValueType> e = current.get(hash & (current.length() - 1));
+        while (e instanceof Forward) {
+            current = ((Forward<KeyType, ValueType>) e).table;
+            e = current.get(hash & (current.length() - 1));
+        }
+        for (; e != null; e = e.next) {
+            if (e.hash == hash && e.key.equals(key))
+                return e;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection. It is ok that the
+     * value is null.
+     *
+     * @param key   the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException     if key is null
+     */
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        if (key == null) throw new NullPointerException("key cannot be null");
+        int hash = spread(key);
+        ReentrantLock lock = locks[hash & (STRIPES - 1)];
+        int newSize;
+        lock.lock();
+        try {
+            AtomicReferenceArray<Entry<KeyType, ValueType>> current = tableFor(hash);
+            int index = hash & (current.length() - 1);
+            Entry<KeyType, ValueType> head = current.get(index);
+            for (Entry<KeyType, ValueType> e = head; e != null; e = e.next) {
+                if (e.hash == hash && e.key.equals(key))
+                    throw new IllegalArgumentException("key already exists");
+            }
+            current.set(index, new Entry<>(key, value, hash, head));
+            newSize = size.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+        if (newSize > table.length() * 0.75)
+            resize();
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     *
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the
+     *         key doesn't map to a value
+     */
+    public boolean containsKey(KeyType key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to.
+     *
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this
+     *                                collection
+     */
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        Entry<KeyType, ValueType> e = find(key);
+        if (e == null) throw new NoSuchElementException();
+        return e.value;
+    }
+
+    /**
+     * Remove the mapping for a key from this collection.
+     *
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this
+     *                                collection
+     */
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        if (key == null) throw new NoSuchElementException();
+        int hash = spread(key);
+        ReentrantLock lock = locks[hash & (STRIPES - 1)];
+        lock.lock();
+        try {
+            AtomicReferenceArray<Entry<KeyType, ValueType>> current = tableFor(hash);
+            int index = hash & (current.length() - 1);
+            Entry<KeyType, ValueType> head = current.get(index);
+            Entry<KeyType, ValueType> found = head;
+            while (found != null && !(found.hash == hash && found.key.equals(key)))
+                found = found.next;
+            if (found == null) throw new NoSuchElementException();
+            // copy the entries ahead of the removed one onto the rest of the chain
+            Entry<KeyType, ValueType> rest = found.next;
+            for (Entry<KeyType, ValueType> e = head; e != found; e = e.next)
+                rest = new Entry<>(e.key, e.value, e.hash, rest);
+            current.set(index, rest);
+            size.decrementAndGet();
+            return found.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all key,value pairs from this collection, keeping its capacity.
+     */
+    public void clear() {
+        // a table that is half copied would bring back the keys copied so far
+        resizeLock.lock();
+        lockAll();
+        try {
+            table = new AtomicReferenceArray<>(table.length());
+            size.set(0);
+        } finally {
+            unlockAll();
+            resizeLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     *
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     *
+     * @return the number of indexes in the underlying table
+     */
+    public int getCapacity() {
+        return table.length();
+    }
+
+    /**
+     * Retrieves this collection's keys.
+     *
+     * @return a list of the keys stored in this collection
+     */
+    public List<KeyType> getKeys() {
+        List<KeyType> keys = new ArrayList<>(size.get());
+        for (KeyType key : this)
+            keys.add(key);
+        return keys;
+    }
+
+    /**
+     * Returns an iterator that walks the chains of the table that is current
+     * when it is created, without locking or copying them.
+     *
+     * @return an iterator over the keys stored in this collection
+     */
+    public Iterator<KeyType> iterator() {
+        final AtomicReferenceArray<Entry<KeyType, ValueType>> current = table;
+        return new Iterator<KeyType>() {
+            private int index = -1;
+            // chains that hold the keys of the index being walked, which are
+            // several once the table has grown since this iterator was made
+            private final ArrayDeque<Entry<KeyType, ValueType>> chains = new ArrayDeque<>();
+            private Entry<KeyType, ValueType> entry = advance(null);
+
+            // returns the entry after e, moving on to later indexes as needed
+            private Entry<KeyType, ValueType> advance(Entry<KeyType, ValueType> e) {
+                if (e != null) e = e.next;
+                while (e == null) {
+                    if (chains.isEmpty()) {
+                        if (++index >= current.length()) return null;
+                        addChains(current, index, chains::add);
+                    } else {
+                        e = chains.poll();
+                    }
+                }
+                return e;
+            }
+
+            public boolean hasNext() {
+                return entry != null;
+            }
+
+            public KeyType next() {
+                if (entry == null) throw new NoSuchElementException();
+                KeyType key = entry.key;
+                entry = advance(entry);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * Passes each key,value pair to action, walking the chains of the current
+     * table without locking or copying them.
+     *
+     * @param action receives each key along with the value it maps to
+     */
+    public void forEachEntry(BiConsumer<? super KeyType, ? super ValueType> action) {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> current = table;
+        for (int i = 0; i < current.length(); i++) {
+            addChains(current, i, head -> {
+                for (Entry<KeyType, ValueType> e = head; e != null; e = e.next)
+                    action.accept(e.key, e.value);
+            });
+        }
+    }
+
+    // passes each chain that holds keys of index in table to chains, which
+    // is the index's own chain, or those it was split into if it was copied
+    private static <KeyType, ValueType> void addChains(
+            AtomicReferenceArray<Entry<KeyType, ValueType>> table, int index,
+            Consumer<Entry<KeyType, ValueType>> chains) {
+        Entry<KeyType, ValueType> head = table.get(index);
+        if (head instanceof Forward) {
+            AtomicReferenceArray<Entry<KeyType, ValueType>> grown =
+                    ((Forward<KeyType, ValueType>) head).table;
+            addChains(grown, index, chains);
+            addChains(grown, index + table.length(), chains);
+        } else if (head != null) {
+            chains.accept(head);
+        }
+    }
+
+    // returns the table whose index for hash holds that index's chain, which
+    // stays so while the caller holds the stripe lock for hash
+    private AtomicReferenceArray<Entry<KeyType, ValueType>> tableFor(int hash) {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> current = table;
+        Entry<KeyType, ValueType> head;
+        while ((head = current.get(hash & (current.length() - 1))) instanceof Forward)
+            current = ((Forward<KeyType, ValueType>) head).table;
+        return current;
+    }
+
+    // doubles the capacity until the table is at most 3/4 full, unless
+    // another thread is already growing it
+    private void resize() {
+        if (!resizeLock.tryLock()) return;
+        try {
+            while (size.get() > table.length() * 0.75)
+                transfer();
+        } finally {
+            resizeLock.unlock();
+        }
+    }
+
+    // copies the table into one twice as large, locking one stripe at a time
+    private void transfer() {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> old = table;
+        int capacity = old.length() * 2;
+        AtomicReferenceArray<Entry<KeyType, ValueType>> grown = new AtomicReferenceArray<>(capacity);
+        Forward<KeyType, ValueType> forward = new Forward<>(grown);
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            locks[stripe].lock();
+            try {
+                for (int i = stripe; i < old.length(); i += STRIPES) {
+                    // entries are immutable, so each one is copied into its new chain
+                    for (Entry<KeyType, ValueType> e = old.get(i); e != null; e = e.next) {
+                        int index = e.hash & (capacity - 1);
+                        grown.set(index, new Entry<>(e.key, e.value, e.hash, grown.get(index)));
+                    }
+                    // the copied chains are complete before anyone is sent to them
+                    old.set(i, forward);
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+        table = grown;
+    }
+
+    // takes every stripe's lock, always in the same order to avoid deadlock
+    private void lockAll() {
+        for (ReentrantLock lock : locks)
+            lock.lock();
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--)
+            locks[i].unlock();
+    }
+}
@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Tests ConcurrentHashtableMap, which declares more than one constructor,
+ * so JUnit cannot run tests declared inside it.
+ */
+public class ConcurrentHashtableMapTests {
+    /**
+     * Tests put, get, containsKey, and remove, including duplicate and null
+     * keys, and keys that share a chain
+     */
+    @Test
+    public void concurrentHashtableMapTest1() {
+        ConcurrentHashtableMap<String, String> test = new ConcurrentHashtableMap<>();
+        test.put("test", "true");
+        test.put("tec", null);
+        // "Aa" and "BB" have the same hashCode, so they share a chain
+        test.put("Aa", "first");
+        test.put("BB", "second");
+        assertEquals("true", test.get("test"));
+        assertNull(test.get("tec"));
+        assertTrue(test.containsKey("tec"));
+        assertFalse(test.containsKey(null));
+        assertThrows(IllegalArgumentException.class, () -> test.put("test", "false"));
+        assertThrows(NullPointerException.class, () -> test.put(null, "false"));
+        assertThrows(NoSuchElementException.class, () -> test.get("tent"));
+
+        // the entry ahead of the removed one is copied, so both stay reachable
+        assertEquals("second", test.remove("BB"));
+        assertEquals("first", test.get("Aa"));
+        assertFalse(test.containsKey("BB"));
+        assertThrows(NoSuchElementException.class, () -> test.remove("BB"));
+        assertEquals(3, test.getSize());
+    }
+
+    /**
+     * Tests that the capacity doubles before the table is more than 3/4
+     * full, that every key can be found and visited afterwards, and that
+     * clear keeps the capacity
+     */
+    @Test
+    public void concurrentHashtableMapTest2() {
+        ConcurrentHashtableMap<String, Integer> test = new ConcurrentHashtableMap<>();
+        assertEquals(64, test.getCapacity());
+        for (int i = 0; i < 48; i++)
+            test.put("key" + i, i);
+        assertEquals(64, test.getCapacity());
+        test.put("key48", 48);
+        assertEquals(128, test.getCapacity());
+        for (int i = 0; i <= 48; i++)
+            assertEquals(Integer.valueOf(i), test.get("key" + i));
+        assertEquals(49, test.getKeys().size());
+        assertEquals(49, test.keyStream().distinct().count());
+        int[] sum = {0};
+        test.forEachEntry((key, value) -> sum[0] += value);
+        assertEquals(48 * 49 / 2, sum[0]);
+        assertEquals(256, new ConcurrentHashtableMap<String, Integer>(100).getCapacity());
+
+        test.clear();
+        assertEquals(0, test.getSize());
+        assertEquals(128, test.getCapacity());
+        assertFalse(test.iterator().hasNext());
+    }
+
+    /**
+     * Tests that keys put and removed by several threads at once, while
+     * other threads read them and the table grows, all end up where they
+     * should
+     */
+    @Test
+    public void concurrentHashtableMapTest3() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Integer> test = new ConcurrentHashtableMap<>();
+        int threads = 4;
+        int perThread = 5000;
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int first = t * perThread;
+            workers.add(new Thread(() -> {
+                try {
+                    // each thread owns a range of keys, and keeps the even ones
+                    for (int i = first; i < first + perThread; i++) {
+                        test.put(i, -i);
+                        assertEquals(Integer.valueOf(-i), test.get(i));
+                    }
+                    for (int i = first + 1; i < first + perThread; i += 2)
+                        assertEquals(Integer.valueOf(-i), test.remove(i));
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+            // readers only look at keys that are never removed once put
+            workers.add(new Thread(() -> {
+                try {
+                    for (int i = first; i < first + perThread; i += 2)
+                        if (test.containsKey(i))
+                            assertEquals(Integer.valueOf(-i), test.get(i));
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers)
+            worker.join();
+
+        assertEquals(List.of(), failures);
+        assertEquals(threads * perThread / 2, test.getSize());
+        for (int i = 0; i < threads * perThread; i++)
+            assertEquals(i % 2 == 0, test.containsKey(i));
+        assertEquals(test.getSize(), test.getKeys().size());
+    }
+
+    /**
+     * Tests that an iterator and forEachEntry over a table that has since
+     * grown twice follow its indexes into the larger tables, and still
+     * visit every key that was present the whole time exactly once
+     */
+    @Test
+    public void concurrentHashtableMapTest4() {
+        ConcurrentHashtableMap<Integer, Integer> test = new ConcurrentHashtableMap<>();
+        for (int i = 0; i < 40; i++)
+            test.put(i, i);
+        Iterator<Integer> keys = test.iterator();
+        assertTrue(keys.hasNext());
+        for (int i = 40; i < 200; i++)
+            test.put(i, i);
+        assertEquals(512, test.getCapacity());
+
+        Set<Integer> seen = new HashSet<>();
+        while (keys.hasNext())
+            assertTrue(seen.add(keys.next()));
+        for (int i = 0; i < 40; i++)
+            assertTrue(seen.contains(i));
+        int[] sum = {0};
+        test.forEachEntry((key, value) -> sum[0] += value);
+        assertEquals(199 * 200 / 2, sum[0]);
+        for (int i = 0; i < 200; i++)
+            assertEquals(Integer.valueOf(i), test.remove(i));
+        assertEquals(0, test.getSize());
+    }
+}
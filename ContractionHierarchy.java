@@ -0,0 +1,370 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * This ContractionHierarchy class answers shortest path queries on a frozen
+ * copy of a graph much faster than Dijkstra's algorithm, after preprocessing
+ * it once. Nodes are contracted one at a time, from the least to the most
+ * important. Contracting a node removes it from the remaining graph, and adds
+ * a shortcut edge between any two of its neighbors whose shortest path went
+ * through it. Each node's rank is the order it was contracted in.
+ * <p>
+ * Every shortest path then climbs to higher ranked nodes and descends again,
+ * so a query only needs a forward search over edges that lead up from the
+ * start node and a backward search over edges that lead up from the end node.
+ * The shortcuts along the path found are unpacked back into the original
+ * edges, so paths contain the same nodes as those found through a
+ * DijkstraGraph with the same edges (whenever the shortest path is unique).
+ * <p>
+ * Methods other than the point-to-point queries are inherited from
+ * CompactGraph, which answers them from the original edges.
+ *
+ * @param <NodeType> the data type stored at each graph node
+ */
+public class ContractionHierarchy<NodeType> extends CompactGraph<NodeType> {
+
+    // most nodes that a witness search may settle before giving up, in which
+    // case a shortcut is added even though it might not be needed
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    // edges leaving node i toward higher ranked nodes, from upOffsets[i] up to
+    // upOffsets[i+1], where a middle of -1 marks an original edge and any
+    // other middle is the node that a shortcut skips over
+    private int[] upOffsets;
+    private int[] upTargets;
+    private double[] upWeights;
+    private int[] upMiddles;
+
+    // edges entering node i from higher ranked nodes, stored the same way
+    private int[] downOffsets;
+    private int[] downSources;
+    private double[] downWeights;
+    private int[] downMiddles;
+
+    private int shortcutCount = 0;
+
+    // a growable list of the edges to or from one node during contraction
+    private static class EdgeList {
+        public int[] nodes = new int[4];
+        public double[] weights = new double[4];
+        public int[] middles = new int[4];
+        public int size = 0;
+
+        // adds an edge, or lowers the weight of the existing edge to the same node
+        public void addOrLower(int node, double weight, int middle) {
+            for (int i = 0; i < size; i++) {
+                if (nodes[i] == node) {
+                    if (weight < weights[i]) {
+                        weights[i] = weight;
+                        middles[i] = middle;
+                    }
+                    return;
+                }
+            }
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+                middles = Arrays.copyOf(middles, size * 2);
+            }
+            nodes[size] = node;
+            weights[size] = weight;
+            middles[size] = middle;
+            size++;
+        }
+    }
+
+    // edges between nodes that have not been contracted yet
+    private EdgeList[] out;
+    private EdgeList[] in;
+    private boolean[] contracted;
+
+    // reusable state for witness searches
+    private double[] witnessCost;
+    private int[] witnessTouched;
+    private IndexedMinHeap witnessHeap;
+
+    /**
+     * Copies the nodes and edges of a graph and contracts them into a
+     * hierarchy. Later changes to that graph are not reflected in this one.
+     *
+     * @param graph the graph to copy nodes and edges from
+     */
+    public <EdgeType extends Number> ContractionHierarchy(BaseGraph<NodeType, EdgeType> graph) {
+        super(graph);
+        contract();
+    }
+
+    /**
+     * Retrieves the number of shortcut edges added while contracting.
+     *
+     * @return the number of shortcuts in this hierarchy
+     */
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    // contracts every node, in an order that keeps the number of shortcuts low
+    private void contract() {
+        int n = getNodeCount();
+        out = new EdgeList[n];
+        in = new EdgeList[n];
+        for (int v = 0; v < n; v++) {
+            out[v] = new EdgeList();
+            in[v] = new EdgeList();
+        }
+        for (int v = 0; v < n; v++) {
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                out[v].addOrLower(targets[e], weights[e], -1);
+                in[targets[e]].addOrLower(v, weights[e], -1);
+            }
+        }
+        contracted = new boolean[n];
+        witnessCost = new double[n];
+        Arrays.fill(witnessCost, Double.POSITIVE_INFINITY);
+        witnessTouched = new int[n];
+        witnessHeap = new IndexedMinHeap(n, 4);
+        int[] contractedNeighbors = new int[n];
+        EdgeList[] up = new EdgeList[n];
+        EdgeList[] down = new EdgeList[n];
+
+        // nodes are ordered by how many edges contracting them would add, less
+        // how many it would remove, plus how many of their neighbors are gone
+        IndexedMinHeap order = new IndexedMinHeap(n, 4);
+        for (int v = 0; v < n; v++)
+            order.insertOrDecrease(v, importance(v, 0));
+        while (!order.isEmpty()) {
+            int v = order.removeMin();
+            // importance only grows stale as neighbors are contracted, so it
+            // is recomputed before v is contracted and v waits if it has risen
+            double importance = importance(v, contractedNeighbors[v]);
+            if (!order.isEmpty() && importance > order.peekPriority()) {
+                order.insertOrDecrease(v, importance);
+                continue;
+            }
+            addShortcuts(v, true);
+            contracted[v] = true;
+            up[v] = remaining(out[v]);
+            down[v] = remaining(in[v]);
+            for (int i = 0; i < up[v].size; i++) contractedNeighbors[up[v].nodes[i]]++;
+            for (int i = 0; i < down[v].size; i++) contractedNeighbors[down[v].nodes[i]]++;
+        }
+
+        // lay the upward and downward edges out like CompactGraph's rows
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] = upOffsets[v] + up[v].size;
+            downOffsets[v + 1] = downOffsets[v] + down[v].size;
+        }
+        upTargets = new int[upOffsets[n]];
+        upWeights = new double[upOffsets[n]];
+        upMiddles = new int[upOffsets[n]];
+        downSources = new int[downOffsets[n]];
+        downWeights = new double[downOffsets[n]];
+        downMiddles = new int[downOffsets[n]];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(up[v].nodes, 0, upTargets, upOffsets[v], up[v].size);
+            System.arraycopy(up[v].weights, 0, upWeights, upOffsets[v], up[v].size);
+            System.arraycopy(up[v].middles, 0, upMiddles, upOffsets[v], up[v].size);
+            System.arraycopy(down[v].nodes, 0, downSources, downOffsets[v], down[v].size);
+            System.arraycopy(down[v].weights, 0, downWeights, downOffsets[v], down[v].size);
+            System.arraycopy(down[v].middles, 0, downMiddles, downOffsets[v], down[v].size);
+        }
+
+        // the contraction state is only needed while preprocessing
+        out = null;
+        in = null;
+        contracted = null;
+        witnessCost = null;
+        witnessTouched = null;
+        witnessHeap = null;
+    }
+
+    // estimates how much contracting v now would grow the remaining graph
+    private double importance(int v, int contractedNeighbors) {
+        int removed = remaining(out[v]).size + remaining(in[v]).size;
+        return addShortcuts(v, false) - removed + contractedNeighbors;
+    }
+
+    // copies the edges in list that lead to nodes which are not contracted
+    private EdgeList remaining(EdgeList list) {
+        EdgeList copy = new EdgeList();
+        for (int i = 0; i < list.size; i++)
+            if (!contracted[list.nodes[i]])
+                copy.addOrLower(list.nodes[i], list.weights[i], list.middles[i]);
+        return copy;
+    }
+
+    // counts (and when apply is true, adds) the shortcuts needed to keep the
+    // shortest paths between v's remaining neighbors once v is removed
+    private int addShortcuts(int v, boolean apply) {
+        double maxOut = 0.0;
+        for (int i = 0; i < out[v].size; i++)
+            if (!contracted[out[v].nodes[i]])
+                maxOut = Math.max(maxOut, out[v].weights[i]);
+        int count = 0;
+        for (int i = 0; i < in[v].size; i++) {
+            int u = in[v].nodes[i];
+            if (contracted[u]) continue;
+            double toV = in[v].weights[i];
+            int touched = witnessSearch(u, v, toV + maxOut);
+            for (int j = 0; j < out[v].size; j++) {
+                int w = out[v].nodes[j];
+                if (contracted[w] || w == u) continue;
+                double viaV = toV + out[v].weights[j];
+                // a path that avoids v and costs no more makes a shortcut unnecessary
+                if (witnessCost[w] <= viaV) continue;
+                count++;
+                if (apply) {
+                    out[u].addOrLower(w, viaV, v);
+                    in[w].addOrLower(u, viaV, v);
+                    shortcutCount++;
+                }
+            }
+            for (int t = 0; t < touched; t++)
+                witnessCost[witnessTouched[t]] = Double.POSITIVE_INFINITY;
+        }
+        return count;
+    }
+
+    // searches from source through nodes that are not contracted, other than
+    // skip, for paths costing at most maxCost; returns how many nodes it reached
+    private int witnessSearch(int source, int skip, double maxCost) {
+        witnessHeap.clear();
+        witnessCost[source] = 0.0;
+        witnessTouched[0] = source;
+        int touched = 1;
+        int settled = 0;
+        witnessHeap.insertOrDecrease(source, 0.0);
+        while (!witnessHeap.isEmpty() && witnessHeap.peekPriority() <= maxCost
+                && settled < WITNESS_SETTLE_LIMIT) {
+            int u = witnessHeap.removeMin();
+            settled++;
+            for (int i = 0; i < out[u].size; i++) {
+                int w = out[u].nodes[i];
+                if (w == skip || contracted[w]) continue;
+                double cost = witnessCost[u] + out[u].weights[i];
+                if (cost < witnessCost[w]) {
+                    if (witnessCost[w] == Double.POSITIVE_INFINITY)
+                        witnessTouched[touched++] = w;
+                    witnessCost[w] = cost;
+                    witnessHeap.insertOrDecrease(w, cost);
+                }
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Returns the nodes, edge weights, and cost of the shortest path from the
+     * node containing the start data to the node containing the end data. A
+     * forward search from start only follows edges up to higher ranked nodes,
+     * and a backward search from end only follows edges entering end from
+     * higher ranked nodes. Each stops once its next node costs at least as
+     * much as the cheapest path found through a node that both have reached.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes, edge weights, and cost of this shortest path
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    @Override
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        int source = ids.get(start);
+        int target = ids.get(end);
+        int n = getNodeCount();
+        double[] forwardCost = new double[n];
+        double[] backwardCost = new double[n];
+        Arrays.fill(forwardCost, Double.POSITIVE_INFINITY);
+        Arrays.fill(backwardCost, Double.POSITIVE_INFINITY);
+        int[] forwardEdge = new int[n];
+        int[] backwardEdge = new int[n];
+        int[] forwardPred = new int[n];
+        int[] backwardPred = new int[n];
+        IndexedMinHeap forward = new IndexedMinHeap(n, 4);
+        IndexedMinHeap backward = new IndexedMinHeap(n, 4);
+        forwardCost[source] = 0.0;
+        backwardCost[target] = 0.0;
+        forward.insertOrDecrease(source, 0.0);
+        backward.insertOrDecrease(target, 0.0);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        while (!forward.isEmpty() || !backward.isEmpty()) {
+            boolean isForward = backward.isEmpty()
+                    || (!forward.isEmpty() && forward.peekPriority() <= backward.peekPriority());
+            IndexedMinHeap heap = isForward ? forward : backward;
+            if (heap.peekPriority() >= best) {
+                heap.clear(); // nothing left in this direction can improve on best
+                continue;
+            }
+            int u = heap.removeMin();
+            double[] cost = isForward ? forwardCost : backwardCost;
+            double[] otherCost = isForward ? backwardCost : forwardCost;
+            if (cost[u] + otherCost[u] < best) {
+                best = cost[u] + otherCost[u];
+                meet = u;
+            }
+            int[] rowOffsets = isForward ? upOffsets : downOffsets;
+            int[] rowNodes = isForward ? upTargets : downSources;
+            double[] rowWeights = isForward ? upWeights : downWeights;
+            int[] edge = isForward ? forwardEdge : backwardEdge;
+            int[] pred = isForward ? forwardPred : backwardPred;
+            for (int e = rowOffsets[u]; e < rowOffsets[u + 1]; e++) {
+                int w = rowNodes[e];
+                double newCost = cost[u] + rowWeights[e];
+                if (newCost < cost[w]) {
+                    cost[w] = newCost;
+                    edge[w] = e;
+                    pred[w] = u;
+                    heap.insertOrDecrease(w, newCost);
+                }
+            }
+        }
+        if (meet < 0)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+
+        // unpack the upward half from start to meet, then the downward half to end
+        ArrayList<int[]> upward = new ArrayList<>();
+        for (int v = meet; v != source; v = forwardPred[v])
+            upward.add(new int[] {forwardPred[v], v, forwardEdge[v]});
+        Collections.reverse(upward);
+        ArrayList<NodeType> path = new ArrayList<>();
+        ArrayList<Double> legs = new ArrayList<>();
+        path.add(start);
+        for (int[] step : upward)
+            unpack(step[0], step[1], upWeights[step[2]], upMiddles[step[2]], path, legs);
+        for (int v = meet; v != target; v = backwardPred[v])
+            unpack(v, backwardPred[v], downWeights[backwardEdge[v]], downMiddles[backwardEdge[v]],
+                    path, legs);
+
+        // sum the original edge weights in order, just as a forward search would
+        double total = 0.0;
+        for (double leg : legs)
+            total += leg;
+        return new ShortestPath<>(path, legs, total);
+    }
+
+    // appends the original edges that the edge from u to w stands for to path
+    // and legs (w and later nodes are added, but not u)
+    private void unpack(int u, int w, double weight, int middle, List<NodeType> path,
+                        List<Double> legs) {
+        if (middle < 0) {
+            path.add(names.get(w));
+            legs.add(weight);
+            return;
+        }
+        // middle was contracted before u and w, so the edge from u to middle
+        // enters middle from above and the edge from middle to w leads above it
+        for (int e = downOffsets[middle]; e < downOffsets[middle + 1]; e++)
+            if (downSources[e] == u)
+                unpack(u, middle, downWeights[e], downMiddles[e], path, legs);
+        for (int e = upOffsets[middle]; e < upOffsets[middle + 1]; e++)
+            if (upTargets[e] == w)
+                unpack(middle, w, upWeights[e], upMiddles[e], path, legs);
+    }
+}
@@ -30,36 +30,122 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      * field. The total cost of this path is stored in its cost field. And the
      * predecessor SearchNode within this path is referened by the predecessor
      * field (this field is null within the SearchNode containing the starting
-     * node in its node field).
+     * node in its node field). The edge field references the edge that was
+     * followed from the predecessor to reach this node (also null at start).
      * <p>
-     * SearchNodes are Comparable and are sorted by cost so that the lowest cost
-     * SearchNode has the highest priority within a java.util.PriorityQueue.
+     * SearchNodes are Comparable and are sorted by estimate so that the lowest
+     * estimate SearchNode has the highest priority within a
+     * java.util.PriorityQueue. The estimate is the same as the cost, except
+     * during ALT searches, which add a lower bound on the cost that remains
+     * to reach the end node.
      */
     protected class SearchNode implements Comparable<SearchNode> {
         public Node node;
         public double cost;
         public SearchNode predecessor;
+        public Edge edge;
+        public double estimate;
 
         public SearchNode(Node node, double cost, SearchNode predecessor) {
+            this(node, cost, predecessor, null);
+        }
+
+        public SearchNode(Node node, double cost, SearchNode predecessor, Edge edge) {
             this.node = node;
             this.cost = cost;
             this.predecessor = predecessor;
+            this.edge = edge;
+            this.estimate = cost;
         }
 
         public int compareTo(SearchNode other) {
-            if (cost > other.cost)
+            if (estimate > other.estimate)
                 return +1;
-            if (cost < other.cost)
+            if (estimate < other.estimate)
                 return -1;
             return 0;
         }
     }
 
+    /**
+     * The ways that computeShortestPath can search for a path between two
+     * nodes. DIJKSTRA grows a single search forward from the start node, and
+     * BIDIRECTIONAL also grows a second search backward from the end node
+     * (through each node's edgesEntering list) until the two searches meet.
+     * ALT runs an A* search directed toward the end node by lower bounds that
+     * come from the landmarks computed by prepareLandmarks (and runs like
+     * DIJKSTRA when no landmarks have been computed).
+     */
+    public enum SearchMode { DIJKSTRA, BIDIRECTIONAL, ALT }
+
+    // how point-to-point searches are run, which can be changed at any time
+    private volatile SearchMode searchMode = SearchMode.DIJKSTRA;
+
+    /**
+     * The costs of the shortest paths from and to each of a few landmark
+     * nodes, computed once by prepareLandmarks. By the triangle inequality,
+     * the cost of a path from v to end is at least from[i][end] - from[i][v]
+     * and at least to[i][v] - to[i][end] for every landmark i. Nodes are
+     * indexed by their ids.
+     */
+    protected class Landmarks {
+        public List<NodeType> landmarks;
+        public int columns;     // the id bound when these costs were computed
+        public double[][] from; // from[i][v] is the cost from landmark i to v
+        public double[][] to;   // to[i][v] is the cost from v to landmark i
+
+        // returns a lower bound on the cost of any path from node v to end
+        public double lowerBound(int v, int end) {
+            // nodes inserted since these costs were computed have no bound
+            if (v >= columns) return 0.0;
+            double bound = 0.0;
+            for (int i = 0; i < from.length; i++) {
+                // bounds that involve an unreachable node are skipped
+                double forward = from[i][end] - from[i][v];
+                double backward = to[i][v] - to[i][end];
+                if (forward > bound && forward != Double.POSITIVE_INFINITY) bound = forward;
+                if (backward > bound && backward != Double.POSITIVE_INFINITY) bound = backward;
+            }
+            return bound;
+        }
+    }
+
+    // landmark costs for ALT searches, which are discarded when the graph changes
+    private volatile Landmarks landmarks = null;
+
+    /**
+     * The shortest path tree grown by one complete search from a source node:
+     * the SearchNode settled for every node reachable from that source, whose
+     * cost and predecessor chain give the shortest path to that node, and the
+     * same SearchNodes listed in the order that they were settled.
+     */
+    protected class ShortestPathTree {
+        public SearchNode root;
+        public NodeLabels<SearchNode> reached = new NodeLabels<>(getIdBound());
+        public List<SearchNode> settled = new ArrayList<>();
+    }
+
+    // complete trees for recently searched sources, or null when not kept
+    private volatile ResultCache<NodeType, ShortestPathTree> treeCache = null;
+
+    // priority queue counts from the latest search run by each thread, which
+    // are kept per thread since one graph may be searched by many at once
+    private final ThreadLocal<SearchStats> lastSearchStats = new ThreadLocal<>();
+
     /**
      * Constructor that sets the map that the graph uses.
      */
     public DijkstraGraph() {super(new HashtableMap<>());}
 
+    /**
+     * Constructor that sets the kind of map that the graph stores its nodes
+     * in. Searches keep their state in NodeLabels indexed by node id instead.
+     *
+     * @param maps creates the map that this graph stores its nodes in, for
+     *             example OpenAddressingMap::new
+     */
+    public DijkstraGraph(MapFactory maps) {super(maps);}
+
     /**
      * This helper method creates a network of SearchNodes while computing the
      * shortest path between the provided start and end locations. The
@@ -77,29 +163,459 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      */
     protected SearchNode computeShortestPath(NodeType start, NodeType end) {
         // implement in step 5.3
-        HashtableMap<NodeType,SearchNode> visited = new HashtableMap<>();
+        // an ALT search toward end settles far fewer nodes than growing a
+        // whole tree would, so in ALT mode paths only use trees already kept
+        ShortestPathTree tree = searchMode == SearchMode.ALT ? getCachedShortestPathTree(start)
+                : getShortestPathTree(start);
+        if (tree != null) {
+            // paths from a cached source are read from its tree without searching
+            SearchNode reached = nodes.containsKey(end) ? tree.reached.label(nodes.get(end).id) : null;
+            if (reached == null)
+                throw new NoSuchElementException("There is no path that connects start node to destination node");
+            return reached;
+        }
+        if (searchMode == SearchMode.BIDIRECTIONAL)
+            return computeBidirectionalShortestPath(start, end);
+        SearchNode a = computeShortestPaths(start, end, Integer.MAX_VALUE,
+                Double.POSITIVE_INFINITY, null);
+        // if no value is returned and the priority queue is empty, we can assume that we never
+        // came across the end node during our traversal, thus we can automatically throw an exception here
+        if (a == null)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+        return a;
+    }
+
+    /**
+     * This helper method runs Dijkstra's algorithm from the start node, and is
+     * shared by every kind of search through this graph except bidirectional
+     * ones. In ALT mode, searches toward an end node become A* searches that
+     * are ordered by each path's cost plus a lower bound on the cost that
+     * remains, so fewer nodes away from end are settled. A tentative cost is
+     * kept for every node that has been queued, and a new path to a node is
+     * only queued when it is cheaper than that node's tentative cost, so the
+     * priority queue is not flooded with paths that can never be used. The
+     * settled nodes and tentative costs are kept in NodeLabels indexed by
+     * node id, so the search never hashes or compares node data. The
+     * number of pushes, pops, and stale pops performed is recorded in the
+     * SearchStats returned by getLastSearchStats().
+     *
+     * @param start   the data item in the starting node for the search
+     * @param end     the data item in the node to stop at, or null to not stop
+     *                at any particular node
+     * @param limit   the most nodes other than start that may be settled
+     * @param maxCost the largest path cost that may be queued
+     * @param settled when not null, each SearchNode other than the start's is
+     *                added to this list as it is settled, in order of cost
+     * @return SearchNode for the end node, or null if end was not reached
+     * @throws NoSuchElementException when start does not correspond to a
+     *                                graph node
+     */
+    protected SearchNode computeShortestPaths(NodeType start, NodeType end, int limit,
+                                              double maxCost, List<SearchNode> settled) {
+        SearchStats stats = new SearchStats();
+        lastSearchStats.set(stats);
+        Node startNode = nodes.get(start);
+        // a search for an end node that is not in the graph cannot succeed
+        if (end != null && !nodes.containsKey(end)) return null;
+        Node endNode = end == null ? null : nodes.get(end);
+        // ALT searches direct the queue toward end using the landmarks' bounds
+        Landmarks alt = searchMode == SearchMode.ALT && endNode != null ? landmarks : null;
+        int target = alt != null && endNode.id < alt.columns ? endNode.id : -1;
+        NodeLabels<SearchNode> labels = new NodeLabels<>(getIdBound());
         PriorityQueue<SearchNode> pq = new PriorityQueue<>();
 
         //the cost of going from the start node to the start node is 0
-        pq.add(new SearchNode(nodes.get(start), 0.0, null));
+        pq.add(new SearchNode(startNode, 0.0, null));
+        labels.label(startNode.id, 0.0, pq.peek());
+        stats.recordPush();
+        int count = 0;
 
         while (!pq.isEmpty()) {
             // Traversing through the next node with the highest priority (Cheapest total path length)
             SearchNode a = pq.remove();
-            if (visited.containsKey(a.node.data)) continue;
-            if (a.node.data.equals(end)) return a; // If the next node is the end node then the searchNode found contains the shortest path to the destination
+            boolean stale = labels.isSettled(a.node.id);
+            stats.recordPop(stale);
+            if (stale) continue;
+            if (a.node == endNode) return a; // If the next node is the end node then the searchNode found contains the shortest path to the destination
 
-            visited.put(a.node.data, a);
+            labels.settle(a.node.id);
+            if (a.predecessor != null) {
+                if (count == limit) break;
+                count++;
+                if (settled != null) settled.add(a);
+            }
             // Add all edges from the current node of interest into the priority queue so that we can choose the next shortest path to traverse down
             for (Edge i : a.node.edgesLeaving) {
-                if (!visited.containsKey(i.successor.data)) { // ensures that visited nodes are not added to the priority queue
-                    pq.add(new SearchNode(i.successor, a.cost + i.data.doubleValue(), a));
+                int succ = i.successor.id;
+                double cost = a.cost + i.data.doubleValue();
+                // paths that already cost too much can only get more expensive
+                if (cost > maxCost || labels.isSettled(succ)) continue;
+                // only queue this path when it beats the best one queued so far
+                if (cost >= labels.cost(succ)) continue;
+                SearchNode b = new SearchNode(i.successor, cost, a, i);
+                labels.label(succ, cost, b);
+                if (target >= 0) b.estimate = cost + alt.lowerBound(succ, target);
+                pq.add(b);
+                stats.recordPush();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * This helper method returns the complete shortest path tree from start,
+     * when trees are being cached. A cached tree is reused when there is one,
+     * and otherwise a search without any end node, limit, or maximum cost
+     * settles every reachable node to grow a new tree, which is cached.
+     *
+     * @param start the data item in the root node of the tree
+     * @return the tree of shortest paths from start, or null when trees are
+     *         not being cached
+     * @throws NoSuchElementException when start does not correspond to a
+     *                                graph node
+     */
+    protected ShortestPathTree getShortestPathTree(NodeType start) {
+        ResultCache<NodeType, ShortestPathTree> cache = treeCache;
+        if (cache == null)
+            return null;
+        ShortestPathTree tree = cache.get(start);
+        if (tree != null)
+            return tree;
+        tree = new ShortestPathTree();
+        computeShortestPaths(start, null, Integer.MAX_VALUE, Double.POSITIVE_INFINITY,
+                tree.settled);
+        // every predecessor chain ends at the SearchNode the search started from
+        tree.root = tree.settled.isEmpty() ? new SearchNode(nodes.get(start), 0.0, null)
+                : tree.settled.get(0).predecessor;
+        tree.reached.label(tree.root.node.id, 0.0, tree.root);
+        for (SearchNode a : tree.settled)
+            tree.reached.label(a.node.id, a.cost, a);
+        cache.put(start, tree);
+        return tree;
+    }
+
+    /**
+     * This helper method returns the shortest path tree from start when one
+     * is already cached, without growing one when it is not.
+     *
+     * @param start the data item in the root node of the tree
+     * @return the cached tree of shortest paths from start, or null when
+     *         there is none
+     */
+    protected ShortestPathTree getCachedShortestPathTree(NodeType start) {
+        ResultCache<NodeType, ShortestPathTree> cache = treeCache;
+        return cache == null ? null : cache.get(start);
+    }
+
+    /**
+     * This helper method finds the same shortest path as computeShortestPath,
+     * by growing a forward search from start over edgesLeaving and a backward
+     * search from end over edgesEntering, always advancing whichever search
+     * has the cheaper next node. Each time either search reaches a node that
+     * the other has already queued, the combined path through that node is
+     * remembered when it is the cheapest seen so far. Both searches stop once
+     * the costs of their next nodes add up to at least that path's cost, since
+     * no path through an unsettled node can be cheaper. On most graphs this
+     * settles far fewer nodes than a single search that must reach end alone.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return SearchNode for the final end node within the shortest path
+     * @throws NoSuchElementException when no path from start to end is found
+     *                                or when either start or end data do not
+     *                                correspond to a graph node
+     */
+    protected SearchNode computeBidirectionalShortestPath(NodeType start, NodeType end) {
+        SearchStats stats = new SearchStats();
+        lastSearchStats.set(stats);
+        SearchNode first = new SearchNode(nodes.get(start), 0.0, null);
+        Node endNode = nodes.get(end);
+        if (first.node == endNode) return first;
+
+        // backward SearchNodes store the cost of reaching end from their node,
+        // and their predecessor is the next node along the path toward end;
+        // each search labels nodes with the cheapest SearchNode it queued
+        NodeLabels<SearchNode> forwardLabels = new NodeLabels<>(getIdBound());
+        NodeLabels<SearchNode> backwardLabels = new NodeLabels<>(getIdBound());
+        PriorityQueue<SearchNode> forward = new PriorityQueue<>();
+        PriorityQueue<SearchNode> backward = new PriorityQueue<>();
+        forward.add(first);
+        forwardLabels.label(first.node.id, 0.0, first);
+        backward.add(new SearchNode(endNode, 0.0, null));
+        backwardLabels.label(endNode.id, 0.0, backward.peek());
+        stats.recordPush();
+        stats.recordPush();
+
+        // the cheapest complete path found so far meets at these SearchNodes
+        SearchNode meetForward = null;
+        SearchNode meetBackward = null;
+        double meetCost = Double.POSITIVE_INFINITY;
+
+        while (!forward.isEmpty() && !backward.isEmpty()
+                && forward.peek().cost + backward.peek().cost < meetCost) {
+            boolean isForward = forward.peek().cost <= backward.peek().cost;
+            PriorityQueue<SearchNode> pq = isForward ? forward : backward;
+            NodeLabels<SearchNode> labels = isForward ? forwardLabels : backwardLabels;
+            NodeLabels<SearchNode> otherLabels = isForward ? backwardLabels : forwardLabels;
+
+            SearchNode a = pq.remove();
+            boolean stale = labels.isSettled(a.node.id);
+            stats.recordPop(stale);
+            if (stale) continue;
+            labels.settle(a.node.id);
+
+            for (Edge i : isForward ? a.node.edgesLeaving : a.node.edgesEntering) {
+                Node next = isForward ? i.successor : i.predecessor;
+                double cost = a.cost + i.data.doubleValue();
+                if (labels.isSettled(next.id) || cost >= labels.cost(next.id)) continue;
+                SearchNode b = new SearchNode(next, cost, a, i);
+                labels.label(next.id, cost, b);
+                pq.add(b);
+                stats.recordPush();
+                // a node queued by both searches joins them into a complete path
+                double otherCost = otherLabels.cost(next.id);
+                if (cost + otherCost < meetCost) {
+                    meetCost = cost + otherCost;
+                    meetForward = isForward ? b : otherLabels.label(next.id);
+                    meetBackward = isForward ? otherLabels.label(next.id) : b;
                 }
             }
         }
-        // if no value is returned and the priority queue is empty, we can assume that we never
-        // came across the end node during our traversal, thus we can automatically throw an exception here
-        throw new NoSuchElementException("There is no path that connects start node to destination node");
+        if (meetForward == null)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+
+        // extend the forward half with the backward half, one edge at a time
+        SearchNode path = meetForward;
+        for (SearchNode i = meetBackward; i.predecessor != null; i = i.predecessor)
+            path = new SearchNode(i.predecessor.node, path.cost + i.edge.data.doubleValue(), path, i.edge);
+        return path;
+    }
+
+    /**
+     * Chooses count landmark nodes and computes the cost of the shortest path
+     * from and to each of them for every node in the graph, so that ALT
+     * searches can be directed by the lower bounds these costs provide.
+     * Landmarks are chosen one at a time, each as the node that is farthest
+     * from the landmarks already chosen, which tends to place them around the
+     * edges of the graph where their bounds are tightest. These costs are
+     * discarded whenever a node or edge is inserted or removed afterward.
+     *
+     * @param count the number of landmarks to choose
+     * @return a description of how long this took and how much memory the
+     *         landmark costs use
+     */
+    public String prepareLandmarks(int count) {
+        long startTime = System.nanoTime();
+        Landmarks prepared = new Landmarks();
+        List<Node> all = new ArrayList<>();
+        for (NodeType data : allNodes())
+            all.add(nodes.get(data));
+        count = Math.min(count, all.size());
+        prepared.landmarks = new ArrayList<>();
+        prepared.columns = getIdBound();
+        prepared.from = new double[count][];
+        prepared.to = new double[count][];
+
+        // distance from each node to the closest landmark chosen so far, where
+        // the first node in the graph stands in before any have been chosen
+        double[] closest = new double[prepared.columns];
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        if (!all.isEmpty())
+            updateClosest(closest, landmarkCosts(all.get(0), true, prepared.columns),
+                    landmarkCosts(all.get(0), false, prepared.columns));
+        for (int i = 0; i < count; i++) {
+            // nodes that no landmark reaches yet are chosen first
+            Node farthest = all.get(0);
+            for (Node v : all)
+                if (closest[v.id] > closest[farthest.id]) farthest = v;
+            prepared.landmarks.add(farthest.data);
+            prepared.from[i] = landmarkCosts(farthest, true, prepared.columns);
+            prepared.to[i] = landmarkCosts(farthest, false, prepared.columns);
+            updateClosest(closest, prepared.from[i], prepared.to[i]);
+            closest[farthest.id] = -1.0; // never choose the same landmark twice
+        }
+        this.landmarks = prepared;
+
+        long millis = (System.nanoTime() - startTime) / 1_000_000;
+        long bytes = 2L * count * prepared.columns * Double.BYTES;
+        return "Prepared " + count + " landmarks for " + all.size() + " nodes in " + millis
+                + " ms, using " + bytes + " bytes of landmark costs";
+    }
+
+    // lowers each node's distance to the closest landmark using one landmark's costs
+    private void updateClosest(double[] closest, double[] from, double[] to) {
+        for (int v = 0; v < closest.length; v++) {
+            double distance = Math.min(from[v], to[v]);
+            if (closest[v] >= 0.0 && distance < closest[v]) closest[v] = distance;
+        }
+    }
+
+    // computes the cost of the shortest path from (or when forward is false,
+    // to) the landmark for each node, stored in the column given by its id
+    private double[] landmarkCosts(Node landmark, boolean forward, int columns) {
+        double[] costs = new double[columns];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        PriorityQueue<SearchNode> pq = new PriorityQueue<>();
+        pq.add(new SearchNode(landmark, 0.0, null));
+        while (!pq.isEmpty()) {
+            SearchNode a = pq.remove();
+            int v = a.node.id;
+            // nodes inserted during this search are left out of the columns
+            if (v >= columns || costs[v] != Double.POSITIVE_INFINITY) continue;
+            costs[v] = a.cost;
+            for (Edge i : forward ? a.node.edgesLeaving : a.node.edgesEntering) {
+                Node next = forward ? i.successor : i.predecessor;
+                if (next.id < columns && costs[next.id] == Double.POSITIVE_INFINITY)
+                    pq.add(new SearchNode(next, a.cost + i.data.doubleValue(), a));
+            }
+        }
+        return costs;
+    }
+
+    /**
+     * Retrieves the landmarks chosen by the most recent call to
+     * prepareLandmarks, unless the graph has changed since then.
+     *
+     * @return list of landmark node data, which is empty when there are no
+     *         landmark costs to direct ALT searches with
+     */
+    public List<NodeType> getLandmarks() {
+        Landmarks current = landmarks;
+        return current == null ? new ArrayList<>() : new ArrayList<>(current.landmarks);
+    }
+
+    /**
+     * Insert a new node into the graph, discarding any landmark costs
+     * and cached shortest path trees.
+     *
+     * @param data is the data item stored in the new node
+     * @return true if the data is unique and can be inserted into a new node,
+     *         or false if this data is already in the graph
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public synchronized boolean insertNode(NodeType data) {
+        boolean inserted = super.insertNode(data);
+        if (inserted) discardPreprocessing();
+        return inserted;
+    }
+
+    /**
+     * Remove a node from the graph, discarding any landmark costs
+     * and cached shortest path trees.
+     *
+     * @param data is the data item stored in the node to be removed
+     * @return true if a vertex with data is found and removed, or
+     *         false if that data value is not found in the graph
+     * @throws NullPointerException if data is null
+     */
+    @Override
+    public synchronized boolean removeNode(NodeType data) {
+        boolean removed = super.removeNode(data);
+        if (removed) discardPreprocessing();
+        return removed;
+    }
+
+    /**
+     * Insert or update an edge in the graph, discarding any landmark costs
+     * and cached shortest path trees.
+     *
+     * @param pred   is the data item contained in the new edge's predecesor node
+     * @param succ   is the data item contained in the new edge's successor node
+     * @param weight is the non-negative data item stored in the new edge
+     * @return true if the edge could be inserted or updated, or
+     *         false if the pred or succ data are not found in any graph nodes
+     */
+    @Override
+    public synchronized boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
+        boolean inserted = super.insertEdge(pred, succ, weight);
+        if (inserted) discardPreprocessing();
+        return inserted;
+    }
+
+    /**
+     * Remove an edge from the graph, discarding any landmark costs
+     * and cached shortest path trees.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge could be removed, or
+     *         false if such an edge is not found in the graph
+     */
+    @Override
+    public synchronized boolean removeEdge(NodeType pred, NodeType succ) {
+        boolean removed = super.removeEdge(pred, succ);
+        if (removed) discardPreprocessing();
+        return removed;
+    }
+
+    // forgets everything computed ahead of time from the graph's old edges
+    private void discardPreprocessing() {
+        landmarks = null;
+        ResultCache<NodeType, ShortestPathTree> cache = treeCache;
+        if (cache != null) cache.clear();
+    }
+
+    /**
+     * Keeps the complete shortest path tree from each of the most recently
+     * used source nodes, so that later paths from those sources, and their
+     * closest nodes and nodes within a cost, are read from a tree instead of
+     * searched for. The first query from a source searches the whole
+     * reachable graph to grow its tree, which costs more than the search for
+     * a single path, so this pays off when several destinations are
+     * requested from the same source. In ALT mode, paths are only read from
+     * trees that closestNodes or nodesWithinCost have already grown, and a
+     * path from any other source is found by an ALT search instead of by
+     * growing a tree. The trees are discarded whenever the graph changes. Once the cache is full, the tree from the source
+     * used least recently is evicted.
+     *
+     * @param sources the most trees to keep, or 0 to stop keeping trees
+     */
+    public void setTreeCacheSize(int sources) {
+        setTreeCacheSize(sources, ResultCache.Policy.LRU);
+    }
+
+    /**
+     * Keeps the complete shortest path trees of recently used source nodes
+     * like setTreeCacheSize(int), and chooses the tree to evict once the
+     * cache is full by the given policy.
+     *
+     * @param sources the most trees to keep, or 0 to stop keeping trees
+     * @param policy  how a full cache chooses the tree to evict
+     */
+    public void setTreeCacheSize(int sources, ResultCache.Policy policy) {
+        treeCache = sources > 0 ? new ResultCache<>(sources, policy) : null;
+    }
+
+    /**
+     * Retrieves the cache of shortest path trees, whose hit and miss counts
+     * show how many queries were answered without a search.
+     *
+     * @return the tree cache, or null if trees are not being kept
+     */
+    public ResultCache<NodeType, ShortestPathTree> getTreeCache() {
+        return treeCache;
+    }
+
+    /**
+     * Sets how later calls to shortestPathData, shortestPathCost, and
+     * shortestPath search for a path between two nodes.
+     *
+     * @param mode the kind of search to use from now on
+     */
+    public void setSearchMode(SearchMode mode) {
+        this.searchMode = mode;
+    }
+
+    /**
+     * Retrieves the priority queue counts from the most recent search that
+     * was run through this graph by the calling thread.
+     *
+     * @return the counts from that search, or null if this thread has not
+     *         searched this graph yet
+     */
+    public SearchStats getLastSearchStats() {
+        return lastSearchStats.get();
     }
 
     /**
@@ -120,7 +636,7 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
             // traversing through the path from the destination node to the start node
             ArrayList<NodeType> shortestPath = new ArrayList<>();
             SearchNode shortest = computeShortestPath(start, end);
-            while (shortest.cost > 0) {
+            while (shortest.predecessor != null) {
                 shortestPath.add(shortest.node.data);
                 shortest = shortest.predecessor;
             }
@@ -150,6 +666,88 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
         return computeShortestPath(start, end).cost;
     }
 
+    /**
+     * Returns the data of the nodes along the shortest path from start to end,
+     * together with the weight of each edge along that path and its total
+     * cost. All of these are read from the predecessor chain of a single
+     * computeShortestPath search, without looking any edges up afterwards.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes, edge weights, and cost of the shortest path
+     * @throws NoSuchElementException when no path from start to end is found
+     *                                or when either start or end data do not
+     *                                correspond to a graph node
+     */
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        SearchNode shortest = computeShortestPath(start, end);
+        ArrayList<NodeType> path = new ArrayList<>();
+        ArrayList<Double> legs = new ArrayList<>();
+        // walk back from the end, recording each node and the edge used to reach it
+        for (SearchNode i = shortest; i != null; i = i.predecessor) {
+            path.add(i.node.data);
+            if (i.edge != null) legs.add(i.edge.data.doubleValue());
+        }
+        Collections.reverse(path);
+        Collections.reverse(legs);
+        return new ShortestPath<>(path, legs, shortest.cost);
+    }
+
+    /**
+     * Returns the data of the k nodes that are cheapest to reach from the
+     * start node, ordered from closest to farthest. Unlike calling
+     * shortestPathCost once per node, this runs a single search that settles
+     * nodes in order of their cost and stops after k destinations are found.
+     *
+     * @param start the data item in the starting node for the search
+     * @param k     the maximum number of destinations to return
+     * @return list of data items from the k closest nodes (excluding start)
+     * @throws NoSuchElementException when start does not correspond to a
+     *                                graph node
+     */
+    public List<NodeType> closestNodes(NodeType start, int k) {
+        ShortestPathTree tree = getShortestPathTree(start);
+        List<SearchNode> settled;
+        if (tree != null) {
+            settled = tree.settled.subList(0, Math.min(Math.max(k, 0), tree.settled.size()));
+        } else {
+            settled = new ArrayList<>();
+            computeShortestPaths(start, null, k, Double.POSITIVE_INFINITY, settled);
+        }
+        // every settled node other than the start is the next closest destination
+        ArrayList<NodeType> closest = new ArrayList<>(settled.size());
+        for (SearchNode a : settled)
+            closest.add(a.node.data);
+        return closest;
+    }
+
+    /**
+     * Returns the data of every node that can be reached from the start node
+     * by a path costing at most maxCost, mapped to that path's cost and
+     * ordered from closest to farthest. Successors that would exceed maxCost
+     * are never queued, so the search only explores the reachable region.
+     *
+     * @param start   the data item in the starting node for the search
+     * @param maxCost the largest path cost that a returned node may have
+     * @return map from the data of each reachable node (excluding start) to
+     *         the cost of its shortest path
+     * @throws NoSuchElementException when start does not correspond to a
+     *                                graph node
+     */
+    public Map<NodeType, Double> nodesWithinCost(NodeType start, double maxCost) {
+        ShortestPathTree tree = getShortestPathTree(start);
+        List<SearchNode> settled = tree != null ? tree.settled : new ArrayList<>();
+        if (tree == null)
+            computeShortestPaths(start, null, Integer.MAX_VALUE, maxCost, settled);
+        LinkedHashMap<NodeType, Double> reachable = new LinkedHashMap<>();
+        for (SearchNode a : settled) {
+            // a tree also holds the nodes beyond maxCost, which come after the rest
+            if (a.cost > maxCost) break;
+            reachable.put(a.node.data, a.cost);
+        }
+        return reachable;
+    }
+
     /**
      * Test that makes use of an example traced through in lecture.
      * Confirms that the results of the implementation matches what was previously computed by hand.
@@ -337,4 +935,559 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
             assertTrue(false, "start and end nodes are not contained in graph");
         }
     }
+
+    /**
+     * Builds the example graph traced through in lecture, which the tests
+     * below share.
+     *
+     * @return a new graph containing the lecture example's nodes and edges
+     */
+    private static DijkstraGraph<String, Integer> createLectureGraph() {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>();
+        for (String node : new String[] {"A", "B", "D", "E", "F", "G", "H", "I", "L", "M"})
+            graph.insertNode(node);
+        graph.insertEdge("A", "B", 1);
+        graph.insertEdge("A", "H", 7);
+        graph.insertEdge("A", "M", 5);
+        graph.insertEdge("B", "M", 3);
+        graph.insertEdge("D", "F", 4);
+        graph.insertEdge("D", "G", 2);
+        graph.insertEdge("D", "A", 7);
+        graph.insertEdge("F", "G", 9);
+        graph.insertEdge("G", "H", 9);
+        graph.insertEdge("G", "L", 7);
+        graph.insertEdge("G", "A", 4);
+        graph.insertEdge("H", "B", 6);
+        graph.insertEdge("H", "I", 2);
+        graph.insertEdge("H", "L", 2);
+        graph.insertEdge("I", "H", 2);
+        graph.insertEdge("I", "D", 1);
+        graph.insertEdge("M", "I", 4);
+        graph.insertEdge("M", "E", 3);
+        graph.insertEdge("M", "F", 4);
+        return graph;
+    }
+
+    /**
+     * Checks that two graphs find paths with the same costs between every
+     * pair of expected's nodes, and agree on which pairs have no path.
+     *
+     * @param expected the graph whose costs are known to be right
+     * @param actual   the graph to compare against it
+     */
+    private static void assertSameShortestPaths(GraphADT<String, ?> expected,
+                                                GraphADT<String, ?> actual) {
+        for (String start : expected.getAllNodes()) {
+            for (String end : expected.getAllNodes()) {
+                double cost;
+                try {
+                    cost = expected.shortestPathCost(start, end);
+                } catch (NoSuchElementException e) {
+                    assertThrows(NoSuchElementException.class,
+                            () -> actual.shortestPathCost(start, end));
+                    continue;
+                }
+                assertEquals(cost, actual.shortestPathCost(start, end), 0.001);
+            }
+        }
+    }
+
+    /**
+     * Test that checks that closestNodes() settles destinations in order of
+     * their cost from the start node, and stops after k of them are found.
+     */
+    @Test
+    public void dijkstraTest4() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+
+        // G(2), F(4), A(6), B(7), L(9) are the five cheapest destinations from D
+        assertEquals(List.of("G", "F", "A", "B", "L"), graph.closestNodes("D", 5));
+        // asking for more destinations than are reachable returns all of them
+        assertEquals(9, graph.closestNodes("D", 20).size());
+        // L has no edges leaving it, so no destinations can be reached
+        assertTrue(graph.closestNodes("L", 10).isEmpty());
+        try {
+            graph.closestNodes("Z", 10);
+            assertTrue(false, "closestNodes() did not throw NoSuchElementException for a missing start node");
+        } catch (NoSuchElementException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Test that checks that nodesWithinCost() returns exactly the nodes whose
+     * shortest path fits within the cost budget, along with those costs.
+     */
+    @Test
+    public void dijkstraTest5() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+
+        Map<String, Double> reachable = graph.nodesWithinCost("D", 7.0);
+        assertEquals(List.of("G", "F", "A", "B"), new ArrayList<>(reachable.keySet()));
+        assertEquals(6.0, reachable.get("A"), 0.001);
+        assertEquals(7.0, reachable.get("B"), 0.001);
+        // no edge leaving D is cheap enough to fit within this budget
+        assertTrue(graph.nodesWithinCost("D", 1.0).isEmpty());
+    }
+
+    /**
+     * Test that checks that shortestPath() reports the same nodes and cost as
+     * shortestPathData() and shortestPathCost(), along with each edge's weight.
+     */
+    @Test
+    public void dijkstraTest6() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+
+        ShortestPath<String> path = graph.shortestPath("D", "I");
+        assertEquals(graph.shortestPathData("D", "I"), path.getNodes());
+        assertEquals(List.of(2.0, 9.0, 2.0), path.getLegs());
+        assertEquals(13.0, path.getCost(), 0.001);
+        // a path from a node to itself has a single node and no edges
+        assertEquals(List.of("D"), graph.shortestPath("D", "D").getNodes());
+        assertTrue(graph.shortestPath("D", "D").getLegs().isEmpty());
+    }
+
+    /**
+     * Test that checks that a CompactGraph copied from this graph holds the
+     * same nodes and edges, and finds the same shortest paths.
+     */
+    @Test
+    public void dijkstraTest7() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        CompactGraph<String> compact = new CompactGraph<>(graph);
+
+        assertEquals(graph.getNodeCount(), compact.getNodeCount());
+        assertEquals(graph.getEdgeCount(), compact.getEdgeCount());
+        assertEquals(7.0, compact.getEdge("G", "L"), 0.001);
+        assertFalse(compact.containsEdge("L", "G"));
+        assertEquals(List.of("D", "G", "H", "I"), compact.shortestPathData("D", "I"));
+        assertEquals(List.of(2.0, 9.0, 2.0), compact.shortestPath("D", "I").getLegs());
+        assertEquals(graph.closestNodes("D", 5), compact.closestNodes("D", 5));
+        assertEquals(graph.nodesWithinCost("D", 7.0), compact.nodesWithinCost("D", 7.0));
+        try {
+            compact.shortestPathCost("I", "Z");
+            assertTrue(false, "CompactGraph did not throw NoSuchElementException for a missing node");
+        } catch (NoSuchElementException e) {
+            assertTrue(true);
+        }
+        try {
+            compact.insertNode("Z");
+            assertTrue(false, "CompactGraph allowed a node to be inserted");
+        } catch (UnsupportedOperationException e) {
+            assertTrue(true);
+        }
+    }
+
+    /**
+     * Test that checks the priority queue counts recorded for a search: every
+     * node is settled by exactly one pop that is not stale, and a path is only
+     * pushed when it is cheaper than the one already queued for that node.
+     */
+    @Test
+    public void dijkstraTest8() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        assertNull(graph.getLastSearchStats());
+
+        // searching without a limit drains the queue and settles all 10 nodes
+        graph.closestNodes("D", 20);
+        SearchStats stats = graph.getLastSearchStats();
+        assertEquals(stats.getPushes(), stats.getPops());
+        assertEquals(10, stats.getPops() - stats.getStalePops());
+        // there are only 19 edges, and the start node is pushed without one
+        assertTrue(stats.getPushes() <= 20);
+    }
+
+    /**
+     * Test that checks that the bidirectional search mode finds paths with the
+     * same costs as the default mode between every pair of nodes, and still
+     * reports when no path exists.
+     */
+    @Test
+    public void dijkstraTest9() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        DijkstraGraph<String, Integer> bidirectional = createLectureGraph();
+        bidirectional.setSearchMode(SearchMode.BIDIRECTIONAL);
+
+        assertEquals(List.of("D", "G", "H", "I"), bidirectional.shortestPathData("D", "I"));
+        assertEquals(List.of(2.0, 9.0, 2.0), bidirectional.shortestPath("D", "I").getLegs());
+        assertSameShortestPaths(graph, bidirectional);
+    }
+
+    /**
+     * Test that checks that ALT searches find paths with the same costs as the
+     * default mode between every pair of nodes, with no landmarks, with one
+     * that cannot reach every node, and with more requested than there are
+     * nodes, and that landmark costs are discarded once the graph changes.
+     */
+    @Test
+    public void dijkstraTest10() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        for (int count : new int[] {0, 1, 3, 20}) {
+            DijkstraGraph<String, Integer> alt = createLectureGraph();
+            alt.prepareLandmarks(count);
+            alt.setSearchMode(SearchMode.ALT);
+            assertEquals(Math.min(count, alt.getNodeCount()), alt.getLandmarks().size());
+            assertSameShortestPaths(graph, alt);
+        }
+
+        // a cheaper edge would make the old landmark costs overestimate paths
+        DijkstraGraph<String, Integer> alt = createLectureGraph();
+        alt.prepareLandmarks(3);
+        alt.setSearchMode(SearchMode.ALT);
+        alt.insertEdge("D", "I", 1);
+        assertTrue(alt.getLandmarks().isEmpty());
+        assertEquals(1.0, alt.shortestPathCost("D", "I"), 0.001);
+    }
+
+    /**
+     * Test that checks that a contraction hierarchy built from a graph answers
+     * queries with the same costs as a search of that graph, and expands the
+     * shortcuts it adds back into the original edges. In a ring, contracting
+     * any node needs a shortcut between its neighbors, except for the node
+     * that a second path of the same cost (a witness) goes around.
+     */
+    @Test
+    public void dijkstraTest11() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        ContractionHierarchy<String> hierarchy = new ContractionHierarchy<>(graph);
+        ShortestPath<String> path = hierarchy.shortestPath("D", "I");
+        assertEquals(List.of("D", "G", "H", "I"), path.getNodes());
+        assertEquals(List.of(2.0, 9.0, 2.0), path.getLegs());
+        assertSameShortestPaths(graph, hierarchy);
+
+        DijkstraGraph<String, Integer> ring = new DijkstraGraph<>();
+        for (int i = 0; i < 6; i++)
+            ring.insertNode("R" + i);
+        for (int i = 0; i < 6; i++) {
+            ring.insertEdge("R" + i, "R" + (i + 1) % 6, 1);
+            ring.insertEdge("R" + (i + 1) % 6, "R" + i, 1);
+        }
+        ring.insertNode("W");
+        ring.insertEdge("R1", "W", 1);
+        ring.insertEdge("W", "R3", 1);
+        ContractionHierarchy<String> contracted = new ContractionHierarchy<>(ring);
+        assertTrue(contracted.getShortcutCount() > 0);
+        assertSameShortestPaths(ring, contracted);
+
+        // every leg of a path must be an original edge, not a shortcut
+        for (String start : ring.getAllNodes()) {
+            for (String end : ring.getAllNodes()) {
+                List<String> nodes = contracted.shortestPath(start, end).getNodes();
+                List<Double> legs = contracted.shortestPath(start, end).getLegs();
+                assertEquals(start, nodes.get(0));
+                assertEquals(end, nodes.get(nodes.size() - 1));
+                for (int i = 0; i < legs.size(); i++)
+                    assertEquals(ring.getEdge(nodes.get(i), nodes.get(i + 1)), legs.get(i), 0.001);
+            }
+        }
+    }
+
+    /**
+     * Test that checks that a distance matrix computed on several threads,
+     * for a graph in two parts with no edges between them, agrees with a
+     * search of the graph on every pair of nodes, including those with no
+     * path between them, and reports its progress.
+     */
+    @Test
+    public void dijkstraTest12() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        graph.insertNode("X");
+        graph.insertNode("Y");
+        graph.insertEdge("X", "Y", 4);
+        List<String> names = graph.getAllNodes();
+        int[] sources = new int[graph.getEdgeCount()];
+        int[] targets = new int[sources.length];
+        double[] weights = new double[sources.length];
+        int edge = 0;
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = 0; j < names.size(); j++) {
+                if (graph.containsEdge(names.get(i), names.get(j))) {
+                    sources[edge] = i;
+                    targets[edge] = j;
+                    weights[edge++] = graph.getEdge(names.get(i), names.get(j));
+                }
+            }
+        }
+        List<String> reports = new java.util.concurrent.CopyOnWriteArrayList<>();
+        DistanceMatrix<String> matrix = new DistanceMatrix<>(names, sources, targets, weights, edge,
+                3, reports::add);
+        // a tenth of the 12 sources rounds down to one, so there is a line
+        // for every source except the last, then the summary
+        assertEquals(12, reports.size());
+        assertEquals(matrix.getBuildReport(), reports.get(11));
+
+        assertEquals(List.of("D", "G", "H", "I"), matrix.shortestPathData("D", "I"));
+        assertEquals(List.of(2.0, 9.0, 2.0), matrix.shortestPath("D", "I").getLegs());
+        assertSameShortestPaths(graph, matrix);
+        // closest nodes may tie, so only compare which ones are reached and their costs
+        for (String start : names)
+            assertEquals(graph.nodesWithinCost(start, 100), matrix.nodesWithinCost(start, 100));
+        assertEquals(List.of("Y"), matrix.closestNodes("X", 10));
+        assertEquals(List.of(), matrix.closestNodes("Y", 10));
+        assertThrows(NoSuchElementException.class, () -> matrix.shortestPath("D", "X"));
+        assertThrows(NoSuchElementException.class, () -> matrix.shortestPath("X", "D"));
+    }
+
+    /**
+     * Test that checks that paths, closest nodes, and nodes within a cost
+     * from a source whose shortest path tree is cached are read from that
+     * tree, match the results of searching, and change along with the graph,
+     * and that each eviction policy chooses the right tree to evict.
+     */
+    @Test
+    public void dijkstraTest13() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        DijkstraGraph<String, Integer> cached = createLectureGraph();
+        cached.setTreeCacheSize(4);
+
+        // the first query from D grows its tree, and the rest only read it
+        assertEquals(List.of("D", "G", "H", "I"), cached.shortestPathData("D", "I"));
+        assertEquals(List.of(2.0, 9.0, 2.0), cached.shortestPath("D", "I").getLegs());
+        assertEquals(graph.closestNodes("D", 3), cached.closestNodes("D", 3));
+        assertEquals(graph.nodesWithinCost("D", 10), cached.nodesWithinCost("D", 10));
+        assertEquals(0.0, cached.shortestPathCost("D", "D"), 0.001);
+        assertEquals(1, cached.getTreeCache().getMisses());
+        assertEquals(4, cached.getTreeCache().getHits());
+        assertSameShortestPaths(graph, cached);
+        assertTrue(cached.getTreeCache().size() <= 4);
+
+        // a cheaper edge makes the cached trees out of date
+        cached.insertEdge("D", "I", 1);
+        assertEquals(0, cached.getTreeCache().size());
+        assertEquals(1.0, cached.shortestPathCost("D", "I"), 0.001);
+
+        // D is used most often but longest ago, after which every other
+        // source is used once, so only LRU evicts D's tree
+        for (ResultCache.Policy policy : ResultCache.Policy.values()) {
+            DijkstraGraph<String, Integer> evicting = createLectureGraph();
+            evicting.setTreeCacheSize(3, policy);
+            for (int i = 0; i < 5; i++)
+                evicting.closestNodes("D", 3);
+            String last = null;
+            for (String start : evicting.getAllNodes()) {
+                if (start.equals("D")) continue;
+                evicting.closestNodes(start, 3);
+                last = start;
+            }
+            ResultCache<String, ?> trees = evicting.getTreeCache();
+            assertTrue(trees.size() <= 3);
+            assertEquals(policy != ResultCache.Policy.LRU, trees.get("D") != null);
+            assertNotNull(trees.get(last));
+        }
+
+        // in ALT mode a path never grows a tree, but reads one that
+        // closestNodes has grown
+        DijkstraGraph<String, Integer> alt = createLectureGraph();
+        alt.setTreeCacheSize(4);
+        alt.prepareLandmarks(3);
+        alt.setSearchMode(SearchMode.ALT);
+        assertEquals(List.of("D", "G", "H", "I"), alt.shortestPathData("D", "I"));
+        assertEquals(0, alt.getTreeCache().size());
+        alt.closestNodes("D", 3);
+        assertEquals(1, alt.getTreeCache().size());
+        long hits = alt.getTreeCache().getHits();
+        assertEquals(List.of("D", "G", "H", "I"), alt.shortestPathData("D", "I"));
+        assertEquals(hits + 1, alt.getTreeCache().getHits());
+        assertSameShortestPaths(graph, alt);
+        assertEquals(1, alt.getTreeCache().size());
+    }
+
+    /**
+     * Test that checks that a graph whose nodes are stored in an open
+     * addressing map finds the same paths as one that uses a HashtableMap.
+     */
+    @Test
+    public void dijkstraTest14() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        DijkstraGraph<String, Integer> open = new DijkstraGraph<>(OpenAddressingMap::new);
+        for (String node : graph.getAllNodes())
+            open.insertNode(node);
+        for (String pred : graph.getAllNodes())
+            for (String succ : graph.getAllNodes())
+                if (graph.containsEdge(pred, succ))
+                    open.insertEdge(pred, succ, graph.getEdge(pred, succ));
+        assertEquals(graph.getNodeCount(), open.getNodeCount());
+        assertEquals(graph.getEdgeCount(), open.getEdgeCount());
+
+        assertEquals(List.of("D", "G", "H", "I"), open.shortestPathData("D", "I"));
+        open.setSearchMode(SearchMode.BIDIRECTIONAL);
+        for (String start : graph.getAllNodes())
+            assertEquals(graph.nodesWithinCost(start, 100), open.nodesWithinCost(start, 100));
+        assertSameShortestPaths(graph, open);
+    }
+
+    /**
+     * Test that checks that iterating over a graph's nodes in place reaches
+     * the same nodes as getAllNodes, and follows nodes being removed.
+     */
+    @Test
+    public void dijkstraTest15() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        Iterable<String> nodes = graph.allNodes();
+        List<String> listed = new ArrayList<>();
+        for (String node : nodes)
+            listed.add(node);
+        assertEquals(graph.getAllNodes(), listed);
+
+        // the view is read from the graph each time, so it is never out of date
+        graph.removeNode("A");
+        int count = 0;
+        for (String node : nodes) {
+            assertNotEquals("A", node);
+            count++;
+        }
+        assertEquals(graph.getNodeCount(), count);
+    }
+
+    /**
+     * Test that checks that a graph whose nodes are stored in a concurrent
+     * map keeps answering queries from several threads while another thread
+     * inserts nodes and edges, and that the routes it returns stay correct.
+     * Only such a graph copies its edge lists on write.
+     */
+    @Test
+    public void dijkstraTest16() throws InterruptedException {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(ConcurrentHashtableMap::new);
+        DijkstraGraph<String, Integer> lecture = createLectureGraph();
+        for (String node : lecture.getAllNodes())
+            graph.insertNode(node);
+        for (String pred : lecture.getAllNodes())
+            for (String succ : lecture.getAllNodes())
+                if (lecture.containsEdge(pred, succ))
+                    graph.insertEdge(pred, succ, lecture.getEdge(pred, succ));
+        assertTrue(graph.nodes.get("D").edgesLeaving
+                instanceof java.util.concurrent.CopyOnWriteArrayList);
+        assertTrue(lecture.nodes.get("D").edgesLeaving instanceof ArrayList);
+
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread writer = new Thread(() -> {
+            try {
+                // a long chain hanging off I, which no route between the
+                // lecture nodes can use
+                for (int i = 0; i < 2000; i++) {
+                    graph.insertNode("X" + i);
+                    graph.insertEdge(i == 0 ? "I" : "X" + (i - 1), "X" + i, 1);
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            }
+        });
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 3; r++) {
+            readers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        assertEquals(List.of("D", "G", "H", "I"), graph.shortestPathData("D", "I"));
+                        assertEquals(lecture.shortestPathCost("A", "E"),
+                                graph.shortestPathCost("A", "E"), 0.001);
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        writer.start();
+        readers.forEach(Thread::start);
+        writer.join();
+        for (Thread reader : readers)
+            reader.join();
+
+        assertEquals(List.of(), failures);
+        assertEquals(lecture.getNodeCount() + 2000, graph.getNodeCount());
+        assertEquals(lecture.getEdgeCount() + 2000, graph.getEdgeCount());
+        assertEquals(2000.0, graph.shortestPathCost("I", "X1999"), 0.001);
+    }
+
+    /**
+     * Test that checks that node ids stay unique and below the id bound,
+     * that a node inserted after another was removed gets a new id instead of
+     * the removed one's, and that searches, including ALT and bidirectional
+     * ones, keep working after nodes have been removed and inserted.
+     */
+    @Test
+    public void dijkstraTest17() {
+        DijkstraGraph<String, Integer> graph = createLectureGraph();
+        Set<Integer> ids = new HashSet<>();
+        for (String node : graph.allNodes()) {
+            int id = graph.nodes.get(node).id;
+            assertTrue(id < graph.getIdBound());
+            assertTrue(ids.add(id));
+        }
+        assertEquals(graph.getNodeCount(), graph.getIdBound());
+
+        int bound = graph.getIdBound();
+        graph.removeNode("F");
+        graph.insertNode("Z");
+        assertEquals(bound, graph.nodes.get("Z").id);
+        assertEquals(bound + 1, graph.getIdBound());
+        graph.insertEdge("D", "Z", 1);
+        graph.insertEdge("Z", "I", 1);
+
+        for (SearchMode mode : SearchMode.values()) {
+            graph.setSearchMode(mode);
+            graph.prepareLandmarks(3);
+            assertEquals(List.of("D", "Z", "I"), graph.shortestPathData("D", "I"));
+            assertEquals(2.0, graph.shortestPathCost("D", "I"), 0.001);
+            assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("D", "F"));
+        }
+    }
+
+    /**
+     * An edge weight that removes one node and inserts another in its place
+     * the first time a search reads it, so that the graph changes at a known
+     * point in the middle of that search.
+     */
+    private static class EditingWeight extends Number {
+        private static final long serialVersionUID = 1L;
+        private final double value;
+        private transient Runnable edit;
+
+        private EditingWeight(double value, Runnable edit) {
+            this.value = value;
+            this.edit = edit;
+        }
+
+        @Override
+        public double doubleValue() {
+            Runnable pending = edit;
+            edit = null;
+            if (pending != null) pending.run();
+            return value;
+        }
+
+        @Override
+        public float floatValue() { return (float) value; }
+
+        @Override
+        public long longValue() { return (long) value; }
+
+        @Override
+        public int intValue() { return (int) value; }
+    }
+
+    /**
+     * Test that checks that a node inserted while a search is running, after
+     * a node the search has already settled was removed, is still searched
+     * through, rather than being taken for the removed node.
+     */
+    @Test
+    public void dijkstraTest18() {
+        DijkstraGraph<String, Number> graph = new DijkstraGraph<>(ConcurrentHashtableMap::new);
+        for (String node : List.of("A", "R", "C", "D"))
+            graph.insertNode(node);
+        graph.insertEdge("A", "R", 1.0);
+        graph.insertEdge("A", "C", 2.0);
+        graph.insertEdge("C", "D", 10.0);
+        // read once R is settled, and before C's edges are
+        graph.insertEdge("R", "C", new EditingWeight(5.0, () -> {
+            graph.removeNode("R");
+            graph.insertNode("N");
+            graph.insertEdge("C", "N", 1.0);
+            graph.insertEdge("N", "D", 1.0);
+        }));
+
+        assertEquals(List.of("A", "C", "N", "D"), graph.shortestPathData("A", "D"));
+        assertEquals(4.0, graph.shortestPathCost("A", "D"), 0.001);
+        assertFalse(graph.containsNode("R"));
+    }
 }
@@ -0,0 +1,318 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * This DistanceMatrix class is a CompactGraph that runs Dijkstra's algorithm
+ * from every node once, when it is built, and keeps the results in dense
+ * V-by-V tables: the cost of the shortest path between each pair of nodes,
+ * and the next hop along that path. Queries then only look up a cost, or
+ * follow next hops for as many steps as the path has edges, instead of
+ * running a search.
+ * <p>
+ * The searches from different source nodes are independent, so they are
+ * split across the threads of a ForkJoinPool. They all read the same frozen
+ * adjacency arrays, and each thread reuses one set of search arrays for every
+ * source it is given. Each search writes its row into tables that are stored
+ * outside of the Java heap, so that large tables neither count against the
+ * heap size nor need to be scanned by the garbage collector.
+ * <p>
+ * These tables grow with the square of the number of nodes, so this class is
+ * only meant for graphs of up to a few thousand nodes.
+ *
+ * @param <NodeType> the data type stored at each graph node
+ */
+public class DistanceMatrix<NodeType> extends CompactGraph<NodeType> {
+
+    // number of source nodes below which a fork-join task is not split further
+    private static final int SOURCES_PER_TASK = 8;
+
+    // row i of each table starts at index i*V:
+    // costs holds the cost of the shortest path from node i to each node,
+    // nextHops holds the node after i on that path, or -1 without a path,
+    // and closest lists the nodes reachable from node i, in order of cost
+    protected DoubleBuffer costs;
+    protected IntBuffer nextHops;
+    protected IntBuffer closest;
+    // number of nodes listed in each row of closest
+    protected int[] reachable;
+
+    // describes how long the tables took to compute
+    private String buildReport;
+
+    /**
+     * Precomputes the shortest paths between every pair of nodes currently in
+     * a graph, using one thread per available processor. Later changes to
+     * that graph are not reflected in this one.
+     *
+     * @param graph the graph to copy nodes and edges from
+     * @throws IllegalArgumentException if the graph has too many nodes for
+     *                                  its tables to be allocated
+     */
+    public <EdgeType extends Number> DistanceMatrix(BaseGraph<NodeType, EdgeType> graph) {
+        super(graph);
+        computeAllPairs(Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * Precomputes the shortest paths between every pair of nodes of a graph
+     * that is given as a list of edges, like CompactGraph's constructor with
+     * the same parameters, using one thread per available processor.
+     *
+     * @param names     the data of every node, in order of their ids
+     * @param sources   the id of the predecessor node of each edge
+     * @param targets   the id of the successor node of each edge
+     * @param weights   the positive weight of each edge
+     * @param edgeCount the number of edges stored in these arrays
+     * @throws IllegalArgumentException if names contains duplicate data, or
+     *                                  too many nodes for the tables
+     */
+    public DistanceMatrix(List<NodeType> names, int[] sources, int[] targets, double[] weights,
+                          int edgeCount) {
+        this(names, sources, targets, weights, edgeCount,
+                Runtime.getRuntime().availableProcessors(), null);
+    }
+
+    /**
+     * Precomputes the shortest paths between every pair of nodes of a graph
+     * that is given as a list of edges, on the requested number of threads.
+     * The progress consumer is passed a line of text each time another tenth
+     * of the source nodes is finished, and then the same report that
+     * getBuildReport returns. Those progress lines are passed from the
+     * worker threads, so the consumer must be safe to call from any thread.
+     *
+     * @param names       the data of every node, in order of their ids
+     * @param sources     the id of the predecessor node of each edge
+     * @param targets     the id of the successor node of each edge
+     * @param weights     the positive weight of each edge
+     * @param edgeCount   the number of edges stored in these arrays
+     * @param parallelism the number of threads to run searches on
+     * @param progress    receives progress reports, or null for none
+     * @throws IllegalArgumentException if names contains duplicate data, or
+     *                                  too many nodes for the tables, or if
+     *                                  parallelism is not positive
+     */
+    public DistanceMatrix(List<NodeType> names, int[] sources, int[] targets, double[] weights,
+                          int edgeCount, int parallelism, Consumer<String> progress) {
+        super(names, sources, targets, weights, edgeCount);
+        computeAllPairs(parallelism, progress);
+    }
+
+    /**
+     * Describes how many source nodes the tables were computed from, on how
+     * many threads, and how long that took.
+     *
+     * @return a report on building these tables, for logging
+     */
+    public String getBuildReport() {
+        return buildReport;
+    }
+
+    // fills in one row of each table per node, from a search starting there
+    private void computeAllPairs(int parallelism, Consumer<String> progress) {
+        int nodeCount = names.size();
+        // a direct buffer is indexed by an int number of bytes
+        if ((long) nodeCount * nodeCount > Integer.MAX_VALUE / Double.BYTES)
+            throw new IllegalArgumentException("Too many nodes for a distance matrix: " + nodeCount);
+        int cells = nodeCount * nodeCount;
+        costs = ByteBuffer.allocateDirect(cells * Double.BYTES).order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+        nextHops = ByteBuffer.allocateDirect(cells * Integer.BYTES).order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        closest = ByteBuffer.allocateDirect(cells * Integer.BYTES).order(ByteOrder.nativeOrder())
+                .asIntBuffer();
+        reachable = new int[nodeCount];
+
+        long startTime = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RowTask(0, nodeCount, new AtomicInteger(),
+                    ThreadLocal.withInitial(RowSearch::new), progress));
+        } finally {
+            pool.shutdown();
+        }
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        buildReport = String.format("Computed shortest paths from %d sources in %.1f ms on %d threads"
+                        + " (%.0f sources/s)", nodeCount, millis, parallelism,
+                nodeCount / Math.max(millis / 1000, 1e-9));
+        if (progress != null)
+            progress.accept(buildReport);
+    }
+
+    // the arrays one thread reuses for the search from each of its sources
+    private class RowSearch {
+        private final double[] cost = new double[names.size()];
+        private final int[] pred = new int[names.size()];
+        private final int[] order = new int[names.size()];
+        private final int[] next = new int[names.size()];
+        private final boolean[] settled = new boolean[names.size()];
+        private final IndexedMinHeap heap = createHeap();
+
+        // searches from source, then writes that source's row of each table
+        private void computeRow(int source) {
+            int nodeCount = names.size();
+            int count = computeShortestPaths(source, -1, nodeCount, Double.POSITIVE_INFINITY, cost,
+                    pred, order, settled, heap);
+            Arrays.fill(next, -1);
+            next[source] = source;
+            // nodes are settled after their predecessor, so its hop is known
+            for (int i = 0; i < count; i++) {
+                int node = order[i];
+                next[node] = pred[node] == source ? node : next[pred[node]];
+            }
+            // rows do not overlap, and absolute puts leave the buffers'
+            // positions alone, so threads can write their rows concurrently
+            int row = source * nodeCount;
+            costs.put(row, cost);
+            nextHops.put(row, next);
+            closest.put(row, order, 0, count);
+            reachable[source] = count;
+        }
+    }
+
+    // computes the rows for a range of sources, splitting it between threads
+    private class RowTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final AtomicInteger finished;
+        private final ThreadLocal<RowSearch> searches;
+        private final Consumer<String> progress;
+
+        private RowTask(int from, int to, AtomicInteger finished, ThreadLocal<RowSearch> searches,
+                        Consumer<String> progress) {
+            this.from = from;
+            this.to = to;
+            this.finished = finished;
+            this.searches = searches;
+            this.progress = progress;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SOURCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RowTask(from, middle, finished, searches, progress),
+                        new RowTask(middle, to, finished, searches, progress));
+                return;
+            }
+            RowSearch search = searches.get();
+            int nodeCount = names.size();
+            int step = Math.max(1, nodeCount / 10);
+            for (int source = from; source < to; source++) {
+                search.computeRow(source);
+                int done = finished.incrementAndGet();
+                if (progress != null && done % step == 0 && done < nodeCount)
+                    progress.accept("Computed shortest paths from " + done + " of " + nodeCount
+                            + " sources");
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes, edge weights, and cost of the shortest path from the
+     * node containing the start data to the node containing the end data, by
+     * following the precomputed next hops.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes, edge weights, and cost of this shortest path
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    @Override
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        int source = ids.get(start);
+        int target = ids.get(end);
+        int row = source * names.size();
+        if (nextHops.get(row + target) < 0)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+
+        ArrayList<NodeType> path = new ArrayList<>();
+        ArrayList<Double> legs = new ArrayList<>();
+        path.add(start);
+        for (int node = source; node != target; ) {
+            int next = nextHops.get(node * names.size() + target);
+            legs.add(getEdge(names.get(node), names.get(next)));
+            path.add(names.get(next));
+            node = next;
+        }
+        return new ShortestPath<>(path, legs, costs.get(row + target));
+    }
+
+    /**
+     * Returns the cost of the shortest path from the node containing the
+     * start data to the node containing the end data, without building the
+     * path itself.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    @Override
+    public double shortestPathCost(NodeType start, NodeType end) {
+        double cost = costs.get(ids.get(start) * names.size() + ids.get(end));
+        if (cost == Double.POSITIVE_INFINITY)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+        return cost;
+    }
+
+    /**
+     * Returns the data of the k nodes that are cheapest to reach from the
+     * start node, ordered from closest to farthest.
+     *
+     * @param start the data item in the starting node for the search
+     * @param k     the maximum number of destinations to return
+     * @return list of data items from the k closest nodes (excluding start)
+     * @throws NoSuchElementException if the start node cannot be found
+     */
+    @Override
+    public List<NodeType> closestNodes(NodeType start, int k) {
+        int source = ids.get(start);
+        int row = source * names.size();
+        int count = Math.min(Math.max(k, 0), reachable[source]);
+        ArrayList<NodeType> nodes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            nodes.add(names.get(closest.get(row + i)));
+        return nodes;
+    }
+
+    /**
+     * Returns the data of every node that can be reached from the start node
+     * by a path costing at most maxCost, mapped to that path's cost and
+     * ordered from closest to farthest.
+     *
+     * @param start   the data item in the starting node for the search
+     * @param maxCost the largest path cost that a returned node may have
+     * @return map from the data of each reachable node (excluding start) to
+     *         the cost of its shortest path
+     * @throws NoSuchElementException if the start node cannot be found
+     */
+    @Override
+    public Map<NodeType, Double> nodesWithinCost(NodeType start, double maxCost) {
+        int source = ids.get(start);
+        int row = source * names.size();
+        LinkedHashMap<NodeType, Double> within = new LinkedHashMap<>();
+        for (int i = 0; i < reachable[source]; i++) {
+            int node = closest.get(row + i);
+            double cost = costs.get(row + node);
+            if (cost > maxCost)
+                break;
+            within.put(names.get(node), cost);
+        }
+        return within;
+    }
+}
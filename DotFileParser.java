@@ -0,0 +1,585 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * This DotFileParser class reads the edges of a dot file, each written on a
+ * line of its own like:
+ * <pre>
+ *     "Memorial Union" -> "Science Hall" [seconds=105.8];
+ * </pre>
+ * The file is mapped into memory a window at a time and read one byte at a
+ * time, without decoding it into Strings first. Each quoted name is looked
+ * up in a table of the names seen so far by its bytes, and only a name that
+ * is seen for the first time is copied and decoded into a String. Names are
+ * numbered in the order that they first appear, and each edge is stored as
+ * the numbers of its two names and its weight, in the arrays that
+ * CompactGraph and DistanceMatrix are built from.
+ * <p>
+ * Large files are split into chunks that start at the beginning of a line,
+ * which are parsed on the threads of a ForkJoinPool. Each chunk numbers the
+ * names it sees in its own table and keeps its own edge arrays. The chunks
+ * are then merged in file order: the names of each chunk are looked up in a
+ * single table, in the order that the chunk first saw them, and the edges of
+ * each chunk are renumbered and copied into place. This gives every name and
+ * edge the same number that reading the file from start to end would, so
+ * the result does not depend on the number of threads.
+ * <p>
+ * Lines that are not edges with a seconds attribute, such as the digraph
+ * header and closing brace, are skipped.
+ */
+public class DotFileParser {
+
+    // the most bytes of the file that are mapped into memory at once
+    private static final int WINDOW_SIZE = 64 << 20;
+    // files are only split into chunks of at least this many bytes
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    // the number of chunks made per thread, so that threads which finish
+    // their chunks early can take more
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final byte[] SECONDS = "seconds=".getBytes(StandardCharsets.US_ASCII);
+    // powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = new double[23];
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private List<String> names;
+    private int[] sources;
+    private int[] targets;
+    private double[] weights;
+    private int edgeCount;
+    private String report;
+
+    /**
+     * Reads every edge from a dot file, using one thread per available
+     * processor for files large enough to be split.
+     *
+     * @param filename the path of the file to read
+     * @throws IOException if the file cannot be read, or if an edge's
+     *                     seconds attribute is not a number
+     */
+    public DotFileParser(String filename) throws IOException {
+        this(filename, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads every edge from a dot file, parsing chunks of it on up to the
+     * requested number of threads. Files smaller than a megabyte per thread
+     * are split into fewer chunks, down to a single one.
+     *
+     * @param filename    the path of the file to read
+     * @param parallelism the most threads to parse chunks on
+     * @throws IOException              if the file cannot be read, or if an
+     *                                  edge's seconds attribute is not a
+     *                                  number
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public DotFileParser(String filename, int parallelism) throws IOException {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        long startTime = System.nanoTime();
+        long size;
+        int threads;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            size = channel.size();
+            long[] bounds = chunkBounds(channel, size, parallelism);
+            List<Chunk> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++)
+                chunks.add(new Chunk(channel, bounds[i], bounds[i + 1]));
+            threads = Math.min(parallelism, chunks.size());
+            if (threads == 1) {
+                for (Chunk chunk : chunks)
+                    chunk.call();
+                merge(chunks, null);
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    waitFor(pool.invokeAll(chunks));
+                    merge(chunks, pool);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        report = String.format("Parsed %d edges between %d locations from %.1f MB in %.1f ms"
+                        + " on %d threads (%.1f MB/s)", edgeCount, names.size(), size / 1e6, millis,
+                threads, size / 1e6 / Math.max(millis / 1000, 1e-9));
+    }
+
+    /**
+     * Retrieves the data of every node, in order of their numbers.
+     *
+     * @return an unmodifiable list of every name in the file
+     */
+    public List<String> getNames() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /**
+     * Retrieves the number of the predecessor node of each edge, in the order
+     * that the edges appear in the file. Only the first getEdgeCount entries
+     * are used.
+     *
+     * @return the array of source node numbers
+     */
+    public int[] getSources() {
+        return sources;
+    }
+
+    /**
+     * Retrieves the number of the successor node of each edge. Only the first
+     * getEdgeCount entries are used.
+     *
+     * @return the array of target node numbers
+     */
+    public int[] getTargets() {
+        return targets;
+    }
+
+    /**
+     * Retrieves the seconds attribute of each edge. Only the first
+     * getEdgeCount entries are used.
+     *
+     * @return the array of edge weights
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Retrieves the number of edges read from the file.
+     *
+     * @return the number of edges
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Describes how much was read, how long that took on how many threads,
+     * and how many megabytes of the file were parsed per second.
+     *
+     * @return a report on parsing the file, for logging
+     */
+    public String getReport() {
+        return report;
+    }
+
+    // returns the offsets that chunks start at, followed by the file size,
+    // where every chunk but the first starts just after a newline
+    private static long[] chunkBounds(FileChannel channel, long size, int parallelism)
+            throws IOException {
+        int count = (int) Math.max(1, Math.min((long) parallelism * CHUNKS_PER_THREAD,
+                size / MIN_CHUNK_SIZE));
+        if (parallelism == 1) count = 1;
+        long[] bounds = new long[count + 1];
+        bounds[count] = size;
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        for (int i = 1; i < count; i++) {
+            long position = Math.max(size / count * i, bounds[i - 1]);
+            // move the boundary forward to the start of the next line
+            bounds[i] = size;
+            while (position < size && bounds[i] == size) {
+                probe.clear();
+                int read = channel.read(probe, position);
+                if (read <= 0) break;
+                for (int j = 0; j < read; j++) {
+                    if (probe.get(j) == '\n') {
+                        bounds[i] = position + j + 1;
+                        break;
+                    }
+                }
+                position += read;
+            }
+        }
+        return bounds;
+    }
+
+    // waits for every chunk, and throws the first failure in file order
+    private static void waitFor(List<Future<Void>> futures) throws IOException {
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while parsing", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOException("Unable to parse chunk", e.getCause());
+            }
+        }
+    }
+
+    // numbers the names of every chunk, and then renumbers and copies each
+    // chunk's edges into place, on the pool's threads when there is one
+    private void merge(List<Chunk> chunks, ForkJoinPool pool) throws IOException {
+        // an invalid line only stops its own chunk, so the first one in file
+        // order is reported, counting the lines of the chunks before it
+        long linesBefore = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.errorMessage != null)
+                throw new IOException(String.format(chunk.errorMessage, linesBefore + chunk.errorLine));
+            linesBefore += chunk.lineNumber;
+        }
+
+        if (chunks.size() == 1) {
+            Chunk chunk = chunks.get(0);
+            names = chunk.names.names;
+            sources = chunk.sources;
+            targets = chunk.targets;
+            weights = chunk.weights;
+            edgeCount = chunk.edgeCount;
+            return;
+        }
+        NameTable merged = new NameTable();
+        int[][] renumber = new int[chunks.size()][];
+        int[] offsets = new int[chunks.size()];
+        long total = 0;
+        for (int c = 0; c < chunks.size(); c++) {
+            NameTable local = chunks.get(c).names;
+            renumber[c] = new int[local.names.size()];
+            for (int id = 0; id < renumber[c].length; id++)
+                renumber[c][id] = merged.intern(local.bytes[id], local.names.get(id));
+            offsets[c] = (int) total;
+            total += chunks.get(c).edgeCount;
+        }
+        if (total > Integer.MAX_VALUE - 8)
+            throw new IOException("Too many edges to load: " + total);
+        names = merged.names;
+        edgeCount = (int) total;
+        sources = new int[Math.max(edgeCount, 1)];
+        targets = new int[Math.max(edgeCount, 1)];
+        weights = new double[Math.max(edgeCount, 1)];
+
+        List<Callable<Void>> copies = new ArrayList<>();
+        for (int c = 0; c < chunks.size(); c++) {
+            Chunk chunk = chunks.get(c);
+            int[] ids = renumber[c];
+            int offset = offsets[c];
+            copies.add(() -> {
+                for (int i = 0; i < chunk.edgeCount; i++) {
+                    sources[offset + i] = ids[chunk.sources[i]];
+                    targets[offset + i] = ids[chunk.targets[i]];
+                }
+                System.arraycopy(chunk.weights, 0, weights, offset, chunk.edgeCount);
+                return null;
+            });
+        }
+        waitFor(pool.invokeAll(copies));
+    }
+
+    /**
+     * Numbers names in the order that they are first looked up, keeping the
+     * bytes of each name so that later lookups compare bytes rather than
+     * decoding them.
+     */
+    private static class NameTable {
+        // the data of every name, by number, and the bytes each was decoded from
+        private final List<String> names = new ArrayList<>();
+        private byte[][] bytes = new byte[256][];
+        // open addressing table of name numbers plus one, where 0 marks a free slot
+        private int[] table = new int[512];
+        private int[] tableHashes = new int[512];
+
+        // returns the number of the name stored in the buffer from start up to
+        // end, numbering it first if it has not been seen before
+        private int intern(ByteBuffer buffer, int start, int end) {
+            int hash = 0;
+            for (int i = start; i < end; i++)
+                hash = 31 * hash + buffer.get(i);
+            hash ^= hash >>> 16;
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            for (; table[slot] != 0; slot = (slot + 1) & mask) {
+                if (tableHashes[slot] == hash && sameBytes(bytes[table[slot] - 1], buffer, start, end))
+                    return table[slot] - 1;
+            }
+            byte[] name = new byte[end - start];
+            for (int i = 0; i < name.length; i++)
+                name[i] = buffer.get(start + i);
+            return add(slot, hash, name, new String(name, StandardCharsets.UTF_8));
+        }
+
+        // returns the number of a name that another table already decoded,
+        // numbering it first if it has not been seen before
+        private int intern(byte[] name, String decoded) {
+            int hash = 0;
+            for (byte b : name)
+                hash = 31 * hash + b;
+            hash ^= hash >>> 16;
+            int mask = table.length - 1;
+            int slot = hash & mask;
+            for (; table[slot] != 0; slot = (slot + 1) & mask) {
+                if (tableHashes[slot] == hash && Arrays.equals(bytes[table[slot] - 1], name))
+                    return table[slot] - 1;
+            }
+            return add(slot, hash, name, decoded);
+        }
+
+        // numbers a new name, stored in the free slot found for it
+        private int add(int slot, int hash, byte[] name, String decoded) {
+            int id = names.size();
+            names.add(decoded);
+            if (id == bytes.length)
+                bytes = Arrays.copyOf(bytes, id * 2);
+            bytes[id] = name;
+            table[slot] = id + 1;
+            tableHashes[slot] = hash;
+            // the table is kept at most half full, so probes stay short
+            if (names.size() * 2 > table.length)
+                growTable();
+            return id;
+        }
+
+        // doubles the table, placing each name by its stored hash
+        private void growTable() {
+            int[] oldTable = table;
+            int[] oldHashes = tableHashes;
+            table = new int[oldTable.length * 2];
+            tableHashes = new int[oldTable.length * 2];
+            int mask = table.length - 1;
+            for (int j = 0; j < oldTable.length; j++) {
+                if (oldTable[j] == 0) continue;
+                int slot = oldHashes[j] & mask;
+                while (table[slot] != 0)
+                    slot = (slot + 1) & mask;
+                table[slot] = oldTable[j];
+                tableHashes[slot] = oldHashes[j];
+            }
+        }
+    }
+
+    /**
+     * The lines of the file from one offset up to another, which are parsed
+     * on a single thread into this chunk's own name table and edge arrays.
+     * A line that is not valid stops the chunk, and is recorded by its line
+     * number within the chunk.
+     */
+    private static class Chunk implements Callable<Void> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+
+        private final NameTable names = new NameTable();
+        private int[] sources = new int[1024];
+        private int[] targets = new int[1024];
+        private double[] weights = new double[1024];
+        private int edgeCount = 0;
+
+        // the number of lines parsed so far within this chunk
+        private long lineNumber = 0;
+        // the index just past the last number parsed by parseNumber
+        private int numberEnd;
+        // describes the invalid line with a %d for its number, or null
+        private String errorMessage = null;
+        private long errorLine;
+
+        private Chunk(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        // maps and parses this chunk one window at a time
+        @Override
+        public Void call() throws IOException {
+            long position = start;
+            while (position < end && errorMessage == null) {
+                int length = (int) Math.min(WINDOW_SIZE, end - position);
+                boolean last = position + length == end;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                // a window ends after its last complete line, and the next one
+                // starts with the line that was cut off
+                int parsed = parseLines(window, length, last);
+                if (parsed == 0 && errorMessage == null) {
+                    errorMessage = "Line %d is longer than " + WINDOW_SIZE + " bytes";
+                    errorLine = lineNumber + 1;
+                }
+                position += parsed;
+            }
+            return null;
+        }
+
+        // parses every complete line in the buffer, and the incomplete line at
+        // its end too when it ends the chunk, returning the number of bytes
+        // parsed
+        private int parseLines(ByteBuffer buffer, int length, boolean last) {
+            int start = 0;
+            while (start < length && errorMessage == null) {
+                int end = start;
+                while (end < length && buffer.get(end) != '\n')
+                    end++;
+                if (end == length && !last)
+                    break;
+                lineNumber++;
+                parseLine(buffer, start, end);
+                start = end + 1;
+            }
+            return Math.min(start, length);
+        }
+
+        // adds the edge on the line from start up to end, if there is one
+        private void parseLine(ByteBuffer buffer, int start, int end) {
+            int i = skipSpaces(buffer, start, end);
+            if (i >= end || buffer.get(i) != '"') return;
+            int sourceEnd = indexOf(buffer, (byte) '"', i + 1, end);
+            if (sourceEnd < 0) return;
+            int sourceStart = i + 1;
+
+            i = skipSpaces(buffer, sourceEnd + 1, end);
+            if (i + 1 >= end || buffer.get(i) != '-' || buffer.get(i + 1) != '>') return;
+            i = skipSpaces(buffer, i + 2, end);
+            if (i >= end || buffer.get(i) != '"') return;
+            int targetEnd = indexOf(buffer, (byte) '"', i + 1, end);
+            if (targetEnd < 0) return;
+            int targetStart = i + 1;
+
+            i = skipSpaces(buffer, targetEnd + 1, end);
+            if (i >= end || buffer.get(i) != '[') return;
+            int seconds = find(buffer, SECONDS, i + 1, end);
+            if (seconds < 0) return;
+            double weight = parseNumber(buffer, skipSpaces(buffer, seconds + SECONDS.length, end), end);
+            i = numberEnd < 0 ? end : skipSpaces(buffer, numberEnd, end);
+            if (numberEnd < 0 || i >= end || (buffer.get(i) != ']' && buffer.get(i) != ',')) {
+                errorMessage = "Invalid time format in line %d";
+                errorLine = lineNumber;
+                return;
+            }
+
+            if (edgeCount == weights.length) {
+                sources = Arrays.copyOf(sources, edgeCount * 2);
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+                weights = Arrays.copyOf(weights, edgeCount * 2);
+            }
+            sources[edgeCount] = names.intern(buffer, sourceStart, sourceEnd);
+            targets[edgeCount] = names.intern(buffer, targetStart, targetEnd);
+            weights[edgeCount] = weight;
+            edgeCount++;
+        }
+
+        // parses a decimal number starting at start, and sets numberEnd to the
+        // index after it, or to -1 when there is no number there
+        private double parseNumber(ByteBuffer buffer, int start, int end) {
+            int i = start;
+            boolean negative = false;
+            if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+                negative = buffer.get(i++) == '-';
+            long mantissa = 0;
+            int digits = 0;      // significant digits read into the mantissa
+            int exponent = 0;    // power of ten that the mantissa is scaled by
+            boolean anyDigits = false;
+            boolean exact = true;
+            boolean fraction = false;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b == '.' && !fraction) {
+                    fraction = true;
+                    continue;
+                }
+                if (b < '0' || b > '9') break;
+                anyDigits = true;
+                if (mantissa == 0 && b == '0') {
+                    if (fraction) exponent--;
+                    continue;
+                }
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (fraction) exponent--;
+                } else {
+                    // digits beyond what a long holds are left to parseDouble
+                    exact = false;
+                    if (!fraction) exponent++;
+                }
+            }
+            if (!anyDigits) {
+                numberEnd = -1;
+                return Double.NaN;
+            }
+            if (i < end && (buffer.get(i) == 'e' || buffer.get(i) == 'E')) {
+                int j = i + 1;
+                boolean negativeExponent = false;
+                if (j < end && (buffer.get(j) == '-' || buffer.get(j) == '+'))
+                    negativeExponent = buffer.get(j++) == '-';
+                int power = 0;
+                int powerStart = j;
+                for (; j < end && buffer.get(j) >= '0' && buffer.get(j) <= '9'; j++)
+                    power = Math.min(power * 10 + (buffer.get(j) - '0'), 100000);
+                if (j == powerStart) {
+                    numberEnd = -1;
+                    return Double.NaN;
+                }
+                exponent += negativeExponent ? -power : power;
+                i = j;
+            }
+            numberEnd = i;
+
+            // a mantissa and power of ten that are both exact doubles give an
+            // exactly rounded result from a single multiplication or division
+            if (exact && mantissa < (1L << 53) && Math.abs(exponent) < POWERS_OF_TEN.length) {
+                double value = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent]
+                        : mantissa / POWERS_OF_TEN[-exponent];
+                return negative ? -value : value;
+            }
+            // otherwise rounding correctly takes more care than is worth repeating
+            byte[] text = new byte[i - start];
+            for (int k = 0; k < text.length; k++)
+                text[k] = buffer.get(start + k);
+            return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+        }
+    }
+
+    // returns whether the bytes from start up to end equal the name's bytes
+    private static boolean sameBytes(byte[] name, ByteBuffer buffer, int start, int end) {
+        if (name.length != end - start) return false;
+        for (int i = 0; i < name.length; i++)
+            if (name[i] != buffer.get(start + i)) return false;
+        return true;
+    }
+
+    // returns the first index from start that is not a space, tab, or return
+    private static int skipSpaces(ByteBuffer buffer, int start, int end) {
+        while (start < end) {
+            byte b = buffer.get(start);
+            if (b != ' ' && b != '\t' && b != '\r') break;
+            start++;
+        }
+        return start;
+    }
+
+    // returns the index of the first b from start up to end, or -1
+    private static int indexOf(ByteBuffer buffer, byte b, int start, int end) {
+        for (int i = start; i < end; i++)
+            if (buffer.get(i) == b) return i;
+        return -1;
+    }
+
+    // returns the index of the first occurrence of pattern from start up to
+    // end, or -1
+    private static int find(ByteBuffer buffer, byte[] pattern, int start, int end) {
+        outer:
+        for (int i = start; i + pattern.length <= end; i++) {
+            for (int j = 0; j < pattern.length; j++)
+                if (buffer.get(i + j) != pattern[j]) continue outer;
+            return i;
+        }
+        return -1;
+    }
+}
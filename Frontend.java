@@ -1,5 +1,6 @@
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 
@@ -16,9 +17,21 @@ public class Frontend implements FrontendInterface {
      * @param backend is used for shortest path computations
      */
     public Frontend(BackendInterface backend) {
+        this(backend, "campus.dot");
+    }
+
+
+    /**
+     * Creates a Frontend whose backend is loaded from the specified dot file,
+     * so that callers which already know the file only parse it once.
+     *
+     * @param backend  is used for shortest path computations
+     * @param filename the dot file to load the backend's graph data from
+     */
+    public Frontend(BackendInterface backend, String filename) {
         this.backend = backend;
         try {
-            backend.loadGraphData("campus.dot");
+            backend.loadGraphData(filename);
         } catch (IOException e) {
             System.err.println("Could not load graph data.");
             e.printStackTrace();
@@ -66,21 +79,21 @@ public class Frontend implements FrontendInterface {
      * two locations
      */
     public String generateShortestPathResponseHTML(String start, String end) {
-        List<String> shortestPath = backend.findLocationsOnShortestPath(start, end);
+        // the locations and travel times all come from a single search
+        ShortestPath<String> shortestPath = backend.findShortestPath(start, end);
         if (!shortestPath.isEmpty()) {
             String output = "<p> Start Location: " + start + "; End Location: " + end + "</p>\n";
 
 
             // create an ordered list of all locations along the shortest path 
             output += "<ol>\n";
-            for (String i : shortestPath)
+            for (String i : shortestPath.getNodes())
                 output += "<li>" + i + "</li>\n";
             output += "</ol>\n";
 
 
-            // calculates and returns total travel time along shortest Path
-            Double totalTime = 0.0;
-            for (Double i : backend.findTimesOnShortestPath(start, end)) totalTime += i;
+            // returns total travel time along shortest Path
+            Double totalTime = shortestPath.getCost();
             return output + "<p> Total Travel Time: " + totalTime + " seconds </p> \n";
         } else {
             return "<p>No such path exists</p>\n";
@@ -141,4 +154,59 @@ public class Frontend implements FrontendInterface {
             return "<p>Either startLocation does not exist, or there are no other locations that can be reached from the start location</p>\n";
         }
     }
+
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page.  This HTML output should include:
+     * - a text input field with the id="time", for an optional walking time
+     * Ensure that this text field is clearly labelled, so that the user
+     * can understand how to use it.
+     *
+     * @return an HTML string that contains an input control that the user can
+     * make use of to limit destinations to a maximum walking time
+     */
+    public String generateDestinationsWithinTimePromptHTML() {
+        return "<input type=\"text\" id=\"time\"></input> Maximum Travel Time in seconds (optional)";
+    }
+
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page.  This HTML output should include:
+     * - a paragraph (p) that describes the start location and the maximum
+     * walking time that destinations are being measured within
+     * - an ordered list (ol) of every location reachable within that time,
+     * closest first, along with its walking time
+     * Or if no such destinations can be found, the HTML returned should
+     * instead indicate the kind of problem encountered.
+     *
+     * @param start   is the starting location to find reachable destinations from
+     * @param seconds is the longest walking time that a destination may have
+     * @return an HTML string that describes the destinations reachable from
+     * the specified start location within the specified time.
+     */
+    public String generateDestinationsWithinTimeResponseHTML(String start, double seconds) {
+        try {
+            String output = "<p> Start Location: " + start + "; Maximum Travel Time: " + seconds + " seconds</p>\n";
+
+
+            // extracts every destination reachable within the time limit, closest first
+            Map<String, Double> reachable = backend.getDestinationsWithinTime(start, seconds);
+            if (!reachable.isEmpty()) {
+
+
+                // creates an ordered list of the destinations along with their travel times
+                output += "<ol>\n";
+                for (Map.Entry<String, Double> i : reachable.entrySet())
+                    output += "<li>" + i.getKey() + " (" + i.getValue() + " seconds)</li>\n";
+                output += "</ol>\n";
+                return output;
+            } else {
+                return "<p>No locations can be reached within " + seconds + " seconds</p>\n";
+            }
+        } catch (NoSuchElementException e) {
+            return "<p>Start location does not exist</p>\n";
+        }
+    }
 }
@@ -72,5 +72,33 @@ public interface FrontendInterface {
      *         specified start location.
      */    
     public String generateTenClosestDestinationsResponseHTML(String start);
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page, next to the ten closest destinations prompt.  This 
+     * HTML output should include:
+     * - a text input field with the id="time", for an optional walking time
+     * Ensure that this text field is clearly labelled, so that the user
+     * can understand how to use it.
+     * @return an HTML string that contains an input control that the user can
+     *         make use of to limit destinations to a maximum walking time
+     */
+    public String generateDestinationsWithinTimePromptHTML();
+
+    /**
+     * Returns an HTML fragment that can be embedded within the body of a
+     * larger html page.  This HTML output should include:
+     * - a paragraph (p) that describes the start location and the maximum
+     *        walking time that destinations are being measured within
+     * - an ordered list (ol) of every location reachable within that time,
+     *        closest first, along with its walking time
+     * Or if no such destinations can be found, the HTML returned should 
+     * instead indicate the kind of problem encountered.
+     * @param start is the starting location to find reachable destinations from
+     * @param seconds is the longest walking time that a destination may have
+     * @return an HTML string that describes the destinations reachable from
+     *         the specified start location within the specified time.
+     */
+    public String generateDestinationsWithinTimeResponseHTML(String start, double seconds);
  
 }
@@ -3,6 +3,17 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
 
 public class FrontendTests {
     /**
@@ -130,4 +141,335 @@ public class FrontendTests {
         Frontend test = new Frontend(new Backend( new DijkstraGraph<>()));
         assertEquals(test.generateTenClosestDestinationsResponseHTML("Not a Place"),"<p>Either startLocation does not exist, or there are no other locations that can be reached from the start location</p>\n");
     }
+
+    /**
+     * Tests the generateDestinationsWithinTimeResponseHTML() method with a reachable,
+     * an unreachable, and an invalid start location
+     */
+    @Test
+    public void testIntegration5() {
+        Frontend test = new Frontend(new Backend(new DijkstraGraph<>()));
+        assertEquals("<p> Start Location: Wendt Commons; Maximum Travel Time: 120.0 seconds</p>\n" +
+                "<ol>\n" +
+                "<li>Union South (32.3 seconds)</li>\n" +
+                "<li>Memorial Arch (112.8 seconds)</li>\n" +
+                "</ol>\n", test.generateDestinationsWithinTimeResponseHTML("Wendt Commons", 120));
+        assertEquals("<p>No locations can be reached within 10.0 seconds</p>\n",
+                test.generateDestinationsWithinTimeResponseHTML("Wendt Commons", 10));
+        assertEquals("<p>Start location does not exist</p>\n",
+                test.generateDestinationsWithinTimeResponseHTML("Not a Place", 120));
+    }
+
+    /**
+     * Tests that a backend which precomputes walking times between every pair of locations
+     * gives the same answers as one that searches the graph for each request
+     */
+    @Test
+    public void testIntegration6() {
+        Backend searching = new Backend(new DijkstraGraph<>());
+        Backend precomputed = new Backend(new DijkstraGraph<>(), 1000);
+        Frontend searchingFrontend = new Frontend(searching);
+        Frontend precomputedFrontend = new Frontend(precomputed);
+        assertFalse(searching.isUsingDistanceMatrix());
+        assertTrue(precomputed.isUsingDistanceMatrix());
+
+        assertEquals(searchingFrontend.generateTenClosestDestinationsResponseHTML("Union South"),
+                precomputedFrontend.generateTenClosestDestinationsResponseHTML("Union South"));
+        assertEquals(searchingFrontend.generateDestinationsWithinTimeResponseHTML("Wendt Commons", 300),
+                precomputedFrontend.generateDestinationsWithinTimeResponseHTML("Wendt Commons", 300));
+        assertEquals(searching.findShortestPath("Education Building", "Memorial Union").getCost(),
+                precomputed.findShortestPath("Education Building", "Memorial Union").getCost(), 0.001);
+
+        // a map with more locations than the limit is searched on demand instead
+        Backend limited = new Backend(new DijkstraGraph<>(), 10);
+        new Frontend(limited);
+        assertFalse(limited.isUsingDistanceMatrix());
+    }
+
+    /**
+     * Tests that a backend which caches shortest paths answers repeated requests from its
+     * cache, and empties that cache when graph data is loaded again
+     */
+    @Test
+    public void testIntegration7() throws IOException {
+        Backend backend = new Backend(new DijkstraGraph<>());
+        backend.setPathCache(16, ResultCache.Policy.TINY_LFU);
+        Frontend test = new Frontend(backend);
+        String firstResponse = test.generateShortestPathResponseHTML("Memorial Union",
+                "Computer Sciences and Statistics");
+        assertEquals(firstResponse, test.generateShortestPathResponseHTML("Memorial Union",
+                "Computer Sciences and Statistics"));
+        ResultCache<?, ?> cache = backend.getPathCache();
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.size());
+
+        backend.loadGraphData("campus.dot");
+        assertEquals(0, cache.size());
+        backend.findTimesOnShortestPath("Memorial Union", "Computer Sciences and Statistics");
+        assertEquals(2, cache.getMisses());
+    }
+
+    /**
+     * Tests that the byte-level dot file parser reads names, including ones
+     * that are not ASCII, and weights written in several ways, skips lines
+     * that are not edges, rejects weights that are not numbers, and reports
+     * its throughput
+     */
+    @Test
+    public void testIntegration9() throws IOException {
+        Path file = Files.createTempFile("map", ".dot");
+        try {
+            Files.write(file, ("digraph campus {\r\n"
+                    + "\t\"Memorial Union\" -> \"Science Hall\" [seconds=105.8];\r\n"
+                    + "  \"Science Hall\"->\"Caf\u00e9\" [ seconds=1.5e2 ];\n"
+                    + "\"Caf\u00e9\" [label=\"not an edge\"];\n"
+                    + "\"Caf\u00e9\" -> \"Memorial Union\" [seconds=0.30000000000000004];\n"
+                    + "}").getBytes(StandardCharsets.UTF_8));
+            DotFileParser parsed = new DotFileParser(file.toString());
+            assertEquals(List.of("Memorial Union", "Science Hall", "Caf\u00e9"),
+                    parsed.getNames());
+            assertEquals(3, parsed.getEdgeCount());
+            assertEquals(1, parsed.getSources()[1]);
+            assertEquals(2, parsed.getTargets()[1]);
+            assertEquals(105.8, parsed.getWeights()[0], 0.0);
+            assertEquals(150.0, parsed.getWeights()[1], 0.0);
+            assertEquals(0.1 + 0.2, parsed.getWeights()[2], 0.0);
+            assertTrue(parsed.getReport().contains("MB/s"));
+
+            Backend backend = new Backend(new DijkstraGraph<>());
+            backend.loadGraphData(file.toString());
+            assertEquals(255.8, backend.findShortestPath("Memorial Union", "Caf\u00e9").getCost(),
+                    0.001);
+            assertTrue(backend.getLoadReport().startsWith("Parsed 3 edges between 3 locations"));
+
+            Files.write(file, "\"A\" -> \"B\" [seconds=fast];\n".getBytes());
+            assertThrows(IOException.class, () -> new DotFileParser(file.toString()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that parsing a file split into chunks on several threads numbers
+     * every name and edge the same way as parsing it on one thread, and
+     * reports an invalid line by its line number in the whole file
+     */
+    @Test
+    public void testIntegration10() throws IOException {
+        Path file = Files.createTempFile("map", ".dot");
+        try {
+            // about 4 MB, which is enough for several chunks
+            StringBuilder dot = new StringBuilder("digraph campus {\n");
+            Random random = new Random(400);
+            for (int i = 0; i < 70000; i++)
+                dot.append("\t\"Hall ").append(random.nextInt(3000)).append("\" -> \"Hall ")
+                        .append(random.nextInt(3000)).append("\" [seconds=")
+                        .append(random.nextInt(10000) / 10.0).append("];\n");
+            dot.append("}\n");
+            Files.write(file, dot.toString().getBytes());
+
+            DotFileParser sequential = new DotFileParser(file.toString(), 1);
+            DotFileParser parallel = new DotFileParser(file.toString(), 4);
+            assertFalse(parallel.getReport().contains("on 1 threads"));
+            assertEquals(70000, parallel.getEdgeCount());
+            assertEquals(sequential.getNames(), parallel.getNames());
+            for (int i = 0; i < 70000; i++) {
+                assertEquals(sequential.getSources()[i], parallel.getSources()[i]);
+                assertEquals(sequential.getTargets()[i], parallel.getTargets()[i]);
+                assertEquals(sequential.getWeights()[i], parallel.getWeights()[i], 0.0);
+            }
+
+            // break a line near the end, which is parsed in the last chunk
+            dot.insert(dot.lastIndexOf("[seconds=") + 9, "x");
+            Files.write(file, dot.toString().getBytes());
+            for (int threads : new int[] {1, 4}) {
+                IOException e = assertThrows(IOException.class,
+                        () -> new DotFileParser(file.toString(), threads));
+                assertEquals("Invalid time format in line 70001", e.getMessage());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a snapshot written from campus.dot answers every kind of
+     * query the same way as the parsed graph does, and that a snapshot whose
+     * bytes were changed after it was written is rejected
+     */
+    @Test
+    public void testIntegration11() throws IOException {
+        Path file = Files.createTempFile("campus", ".graph");
+        try {
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            Backend parsed = new Backend(graph);
+            parsed.loadGraphData("campus.dot");
+            parsed.writeSnapshot(file.toString());
+            assertTrue(GraphSnapshot.isSnapshot(file.toString()));
+            assertFalse(GraphSnapshot.isSnapshot("campus.dot"));
+
+            Backend mapped = new Backend(new DijkstraGraph<>());
+            mapped.loadGraphData(file.toString());
+            assertTrue(mapped.getLoadReport().startsWith("Mapped"));
+            assertEquals(parsed.getListOfAllLocations(), mapped.getListOfAllLocations());
+            // the snapshot runs the same search as a compact graph, so even
+            // destinations that are tied come back in the same order
+            CompactGraph<String> compact = new CompactGraph<>(graph);
+            GraphSnapshot snapshot = new GraphSnapshot(file.toString());
+            assertEquals(compact.getEdgeCount(), snapshot.getEdgeCount());
+            for (String start : parsed.getListOfAllLocations()) {
+                assertEquals(compact.closestNodes(start, 10), snapshot.closestNodes(start, 10));
+                assertEquals(new ArrayList<>(compact.nodesWithinCost(start, 300.0).entrySet()),
+                        new ArrayList<>(snapshot.nodesWithinCost(start, 300.0).entrySet()));
+                ShortestPath<String> expected = parsed.findShortestPath(start, "Union South");
+                ShortestPath<String> actual = mapped.findShortestPath(start, "Union South");
+                assertEquals(expected.getCost(), actual.getCost(), 1e-9);
+                if (expected.getNodes().isEmpty()) {
+                    assertTrue(actual.getNodes().isEmpty());
+                } else {
+                    assertEquals(compact.shortestPath(start, "Union South").getNodes(), actual.getNodes());
+                    assertEquals(compact.shortestPath(start, "Union South").getLegs(), actual.getLegs());
+                }
+            }
+            assertThrows(NoSuchElementException.class,
+                    () -> mapped.getTenClosestDestinations("Mosse"));
+            assertThrows(IllegalStateException.class,
+                    () -> mapped.writeSnapshot(file.toString()));
+
+            // flip a bit of the last name, which only the checksum can notice
+            byte[] bytes = Files.readAllBytes(file);
+            bytes[bytes.length - 1] ^= 1;
+            Files.write(file, bytes);
+            IOException e = assertThrows(IOException.class, () -> new GraphSnapshot(file.toString()));
+            assertTrue(e.getMessage().contains("checksum"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Tests that a route store written with a distance matrix answers every
+     * query the same way as that matrix, for a backend that has no graph of
+     * its own, and that it only goes stale when the dot file's contents
+     * change, not when the file is only touched
+     */
+    @Test
+    public void testIntegration12() throws IOException {
+        Path dot = Files.createTempFile("campus", ".dot");
+        Path store = Files.createTempFile("campus", ".graph");
+        try {
+            Files.copy(Paths.get("campus.dot"), dot,
+                    StandardCopyOption.REPLACE_EXISTING);
+            assertFalse(GraphSnapshot.isCurrent(store.toString(), dot.toString()));
+            Backend parsed = new Backend(new DijkstraGraph<>(), 4000);
+            parsed.loadGraphData(dot.toString());
+            assertTrue(parsed.isUsingDistanceMatrix());
+            parsed.writeSnapshot(store.toString());
+            assertTrue(GraphSnapshot.isCurrent(store.toString(), dot.toString()));
+            assertTrue(new GraphSnapshot(store.toString()).hasRoutes());
+
+            Backend mapped = new Backend();
+            mapped.loadGraphData(store.toString());
+            assertTrue(mapped.getLoadReport().contains("every route precomputed"));
+            assertEquals(parsed.getListOfAllLocations(), mapped.getListOfAllLocations());
+            for (String start : parsed.getListOfAllLocations()) {
+                assertEquals(parsed.getTenClosestDestinations(start),
+                        mapped.getTenClosestDestinations(start));
+                assertEquals(new ArrayList<>(parsed.getDestinationsWithinTime(start, 300.0).entrySet()),
+                        new ArrayList<>(mapped.getDestinationsWithinTime(start, 300.0).entrySet()));
+                for (String end : new String[] {"Union South", "Memorial Union"}) {
+                    ShortestPath<String> expected = parsed.findShortestPath(start, end);
+                    ShortestPath<String> actual = mapped.findShortestPath(start, end);
+                    assertEquals(expected.getNodes(), actual.getNodes());
+                    assertEquals(expected.getLegs(), actual.getLegs());
+                    assertEquals(expected.getCost(), actual.getCost(), 0.0);
+                }
+            }
+            assertThrows(IOException.class, () -> new Backend().loadGraphData(dot.toString()));
+
+            // touching the dot file leaves its checksum, and so the store, current
+            Files.setLastModifiedTime(dot, FileTime.fromMillis(
+                    Files.getLastModifiedTime(dot).toMillis() + 60000));
+            assertTrue(GraphSnapshot.isCurrent(store.toString(), dot.toString()));
+            Files.write(dot, "\"A\" -> \"B\" [seconds=1.0];\n".getBytes(),
+                    StandardOpenOption.APPEND);
+            assertFalse(GraphSnapshot.isCurrent(store.toString(), dot.toString()));
+        } finally {
+            Files.delete(dot);
+            Files.delete(store);
+        }
+    }
+
+    /**
+     * Tests that a backend which contracts its map into a hierarchy finds paths as short as
+     * one that searches the graph, and that loading a map contracts it again
+     */
+    @Test
+    public void testIntegration13() throws IOException {
+        Backend searching = new Backend(new DijkstraGraph<>());
+        Backend contracted = new Backend(new DijkstraGraph<>());
+        new Frontend(searching);
+        new Frontend(contracted);
+        assertFalse(contracted.isUsingContractionHierarchy());
+        contracted.setUseContractionHierarchy(true);
+        assertTrue(contracted.isUsingContractionHierarchy());
+
+        for (String start : searching.getListOfAllLocations()) {
+            for (String end : new String[] {"Union South", "Memorial Union", "Wendt Commons"}) {
+                ShortestPath<String> expected = searching.findShortestPath(start, end);
+                ShortestPath<String> actual = contracted.findShortestPath(start, end);
+                assertEquals(expected.getCost(), actual.getCost(), 0.001);
+                // ties between paths of the same cost may be broken either way
+                if (!actual.getNodes().isEmpty())
+                    assertEquals(actual.getNodes().size(), actual.getLegs().size() + 1);
+            }
+        }
+
+        contracted.loadGraphData("campus.dot");
+        assertTrue(contracted.isUsingContractionHierarchy());
+        contracted.setUseContractionHierarchy(false);
+        assertFalse(contracted.isUsingContractionHierarchy());
+        assertThrows(IllegalStateException.class, () -> new Backend().setUseContractionHierarchy(true));
+    }
+
+    /**
+     * Tests that every search mode a backend can choose finds paths as short as the default
+     * one, and that ALT landmarks are prepared again when a map is loaded
+     */
+    @Test
+    public void testIntegration14() throws IOException {
+        Backend searching = new Backend(new DijkstraGraph<>());
+        new Frontend(searching);
+        for (DijkstraGraph.SearchMode mode : DijkstraGraph.SearchMode.values()) {
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            Backend chosen = new Backend(graph);
+            new Frontend(chosen);
+            String report = chosen.setSearchMode(mode);
+            assertEquals(mode == DijkstraGraph.SearchMode.ALT, report != null);
+            for (String start : searching.getListOfAllLocations()) {
+                assertEquals(searching.findShortestPath(start, "Union South").getCost(),
+                        chosen.findShortestPath(start, "Union South").getCost(), 0.001);
+            }
+            chosen.loadGraphData("campus.dot");
+            assertEquals(mode == DijkstraGraph.SearchMode.ALT, !graph.getLandmarks().isEmpty());
+        }
+        assertThrows(IllegalStateException.class,
+                () -> new Backend().setSearchMode(DijkstraGraph.SearchMode.BIDIRECTIONAL));
+    }
+
+    /**
+     * Tests that loading a map again does not leave the graph handing out ids past its node
+     * count, which would make every search allocate arrays for the nodes of earlier maps
+     */
+    @Test
+    public void testIntegration15() throws IOException {
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        Backend backend = new Backend(graph);
+        for (int load = 0; load < 3; load++) {
+            backend.loadGraphData("campus.dot");
+            assertEquals(graph.getNodeCount(), graph.getIdBound());
+        }
+        assertEquals(backend.getListOfAllLocations().size(), graph.getIdBound());
+    }
 }
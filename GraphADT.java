@@ -1,4 +1,5 @@
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -47,6 +48,15 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    * @return list of all node data
    */
   public List<NodeType> getAllNodes();
+
+  /**
+   * Retrieves all node data from this graph as a view that is walked in
+   * place, without copying it into a new list. Nodes must not be inserted
+   * or removed while this view is being iterated.
+   *
+   * @return iterable over all node data
+   */
+  public Iterable<NodeType> allNodes();
     
   /**
    * Return the number of nodes in the graph.
@@ -137,5 +147,54 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    *         start node to the end node
    */
   public double shortestPathCost(NodeType start, NodeType end);
+
+  /**
+   * Returns the data values from nodes along the shortest path from the node
+   * with the provided start value through the node with the provided end 
+   * value, together with the weight of each edge along that path and the 
+   * total cost of the path. All of these come from the same single search, 
+   * so this is cheaper than calling shortestPathData, shortestPathCost, and
+   * getEdge for each leg.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the nodes, edge weights, and cost of this shortest path
+   * @throws NoSuchElementException if either the start or end node cannot
+   *         be found in the graph, or if there is no directed path from the
+   *         start node to the end node
+   */
+  public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end);
+
+  /**
+   * Returns the data values from the k nodes that can be reached most cheaply
+   * from the node with the provided start value, ordered from the closest to
+   * the farthest. The start value itself is not included, and fewer than k 
+   * values are returned when fewer than k other nodes are reachable. This 
+   * method settles nodes in order of their cost with a single Dijkstra search
+   * that stops as soon as k destinations have been found.
+   *
+   * @param start the data item in the starting node for the search
+   * @param k the maximum number of destinations to return
+   * @return list of data items from the k closest nodes, closest first
+   * @throws NoSuchElementException if the start node cannot be found in the
+   *         graph
+   */
+  public List<NodeType> closestNodes(NodeType start, int k);
+
+  /**
+   * Returns the data values from every node that can be reached from the node
+   * with the provided start value by a path that costs no more than maxCost,
+   * mapped to the cost of their shortest path. The start value itself is not
+   * included, and the returned map iterates from the closest to the farthest
+   * node. This search stops expanding once its frontier exceeds maxCost, so 
+   * it only costs as much as the region that can be reached.
+   *
+   * @param start the data item in the starting node for the search
+   * @param maxCost the largest path cost that a reachable node may have
+   * @return map from the data of each reachable node to its path cost
+   * @throws NoSuchElementException if the start node cannot be found in the
+   *         graph
+   */
+  public Map<NodeType, Double> nodesWithinCost(NodeType start, double maxCost);
     
 }
@@ -0,0 +1,795 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+
+/**
+ * This GraphSnapshot class is a read-only GraphADT that is served straight
+ * from a binary file, which is mapped into memory instead of being parsed.
+ * The file holds the same compressed sparse row layout as a CompactGraph,
+ * and a table of node names along with a hash index over their bytes, so
+ * that looking a name up reads a few entries of the mapped file and does not
+ * need a map to be built first. Opening a snapshot only reads its header and
+ * checks its checksum, so startup takes as long as reading the file's pages.
+ * <p>
+ * A snapshot that is written from a DistanceMatrix also holds its route
+ * tables, which makes it a route store: shortest paths and closest nodes are
+ * then looked up in the mapped tables, the same way that DistanceMatrix
+ * looks them up, instead of being searched for. Since these tables are
+ * shared through the file, every process that maps it can use them, without
+ * computing them again. A snapshot also records the length, modification
+ * time, and checksum of the file that it was written from, so isCurrent can
+ * tell when it needs to be written again.
+ * <p>
+ * A snapshot file is laid out in little-endian order as a 72 byte header,
+ * followed by these sections:
+ * <pre>
+ *     magic           8 bytes, "GRAPHSNP"
+ *     version         int, the FORMAT_VERSION that wrote the file
+ *     nodeCount       int
+ *     edgeCount       int
+ *     nameSlots       int, the length of the name index, a power of two
+ *     routes          int, 1 if the route tables are included, or else 0
+ *     (unused)        int
+ *     nameBytes       long, the length of the name bytes section
+ *     sourceLength    long, the length of the source file, or -1 if the
+ *                     snapshot was not written from a file
+ *     sourceModified  long, the source file's modification time in ms
+ *     sourceChecksum  long, the CRC-32C of the source file
+ *     checksum        long, the CRC-32C of every byte after the header
+ *     weights      double[edgeCount]
+ *     costs        double[nodeCount * nodeCount], only with routes
+ *     offsets      int[nodeCount + 1], edges leaving node i are from
+ *                  offsets[i] up to offsets[i + 1]
+ *     targets      int[edgeCount]
+ *     nextHops     int[nodeCount * nodeCount], only with routes
+ *     closest      int[nodeCount * nodeCount], only with routes
+ *     reachable    int[nodeCount], only with routes
+ *     nameOffsets  int[nodeCount + 1], the UTF-8 bytes of node i's name are
+ *                  from nameOffsets[i] up to nameOffsets[i + 1]
+ *     nameIndex    int[nameSlots], node id plus one by the hash of its name,
+ *                  probed linearly, where 0 marks a free slot
+ *     names        byte[nameBytes]
+ * </pre>
+ * The route tables are laid out like the ones in DistanceMatrix: row i of
+ * each starts at index i*nodeCount.
+ */
+public class GraphSnapshot implements GraphADT<String, Double> {
+
+    /**
+     * The version of the layout that this class reads and writes. Snapshots
+     * written with any other version are rejected, and must be rewritten.
+     */
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = "GRAPHSNP".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = 72;
+
+    /**
+     * The length, modification time, and checksum of the file that a
+     * snapshot was written from. Comparing these with the file's current ones
+     * shows whether it has changed since then.
+     */
+    public static class Source {
+        public final long length;
+        public final long modified;
+        public final long checksum;
+
+        /**
+         * Describes a source file by the values that a snapshot records.
+         *
+         * @param length   the length of the file in bytes
+         * @param modified the file's modification time, in ms since the epoch
+         * @param checksum the CRC-32C of the file's contents
+         */
+        public Source(long length, long modified, long checksum) {
+            this.length = length;
+            this.modified = modified;
+            this.checksum = checksum;
+        }
+
+        /**
+         * Reads the length and modification time of a file, and computes the
+         * checksum of its contents.
+         *
+         * @param filename the path of the file to describe
+         * @return a description of the file as it is now
+         * @throws IOException if the file cannot be read
+         */
+        public static Source of(String filename) throws IOException {
+            Path path = Paths.get(filename);
+            long modified = Files.getLastModifiedTime(path).toMillis();
+            return new Source(Files.size(path), modified, checksum(path));
+        }
+
+        // computes the CRC-32C of a file's contents
+        private static long checksum(Path path) throws IOException {
+            CRC32C crc = new CRC32C();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+                while (channel.read(buffer) > 0) {
+                    buffer.flip();
+                    crc.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return crc.getValue();
+        }
+    }
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final DoubleBuffer weights;
+    // the route tables, which are all null when the snapshot has none
+    private final DoubleBuffer costs;
+    private final IntBuffer nextHops;
+    private final IntBuffer closest;
+    private final IntBuffer reachable;
+    private final IntBuffer nameOffsets;
+    private final IntBuffer nameIndex;
+    private final ByteBuffer names;
+    // names that have been decoded so far, by id
+    private final String[] decoded;
+    private final String report;
+
+    /**
+     * Maps a snapshot file into memory, after checking its version, its
+     * length, and its checksum.
+     *
+     * @param filename the path of a file written by write
+     * @throws IOException if the file cannot be read, was written with
+     *                     another version, or is damaged
+     */
+    public GraphSnapshot(String filename) throws IOException {
+        long startTime = System.nanoTime();
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Snapshot is too large to map: " + filename);
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException("Not a graph snapshot: " + filename);
+            // the mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        file.order(ByteOrder.LITTLE_ENDIAN);
+        checkVersion(file, filename);
+        nodeCount = file.getInt(12);
+        edgeCount = file.getInt(16);
+        int nameSlots = file.getInt(20);
+        boolean routes = file.getInt(24) == 1;
+        long nameBytes = file.getLong(32);
+        if (nodeCount < 0 || edgeCount < 0 || nameSlots < 0 || nameBytes < 0
+                || length(nodeCount, edgeCount, nameSlots, routes, nameBytes) != file.capacity())
+            throw new IOException("Snapshot " + filename + " is truncated or damaged");
+        CRC32C crc = new CRC32C();
+        crc.update(file.duplicate().position(HEADER_SIZE));
+        if (crc.getValue() != file.getLong(64))
+            throw new IOException("Snapshot " + filename + " does not match its checksum");
+
+        int cells = routes ? nodeCount * nodeCount : 0;
+        int position = HEADER_SIZE;
+        weights = section(file, position, edgeCount * Double.BYTES).asDoubleBuffer();
+        position += edgeCount * Double.BYTES;
+        DoubleBuffer costTable = section(file, position, cells * Double.BYTES).asDoubleBuffer();
+        position += cells * Double.BYTES;
+        offsets = section(file, position, (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+        position += (nodeCount + 1) * Integer.BYTES;
+        targets = section(file, position, edgeCount * Integer.BYTES).asIntBuffer();
+        position += edgeCount * Integer.BYTES;
+        IntBuffer nextHopTable = section(file, position, cells * Integer.BYTES).asIntBuffer();
+        position += cells * Integer.BYTES;
+        IntBuffer closestTable = section(file, position, cells * Integer.BYTES).asIntBuffer();
+        position += cells * Integer.BYTES;
+        IntBuffer reachableTable = section(file, position, (routes ? nodeCount : 0) * Integer.BYTES)
+                .asIntBuffer();
+        position += (routes ? nodeCount : 0) * Integer.BYTES;
+        nameOffsets = section(file, position, (nodeCount + 1) * Integer.BYTES).asIntBuffer();
+        position += (nodeCount + 1) * Integer.BYTES;
+        nameIndex = section(file, position, nameSlots * Integer.BYTES).asIntBuffer();
+        position += nameSlots * Integer.BYTES;
+        names = section(file, position, (int) nameBytes);
+        decoded = new String[nodeCount];
+        costs = routes ? costTable : null;
+        nextHops = routes ? nextHopTable : null;
+        closest = routes ? closestTable : null;
+        reachable = routes ? reachableTable : null;
+
+        double millis = (System.nanoTime() - startTime) / 1e6;
+        report = String.format("Mapped %d edges between %d locations%s from %.1f MB in %.1f ms",
+                edgeCount, nodeCount, routes ? ", with every route precomputed," : "",
+                file.capacity() / 1e6, millis);
+    }
+
+    // throws an exception unless the header has the magic bytes and version
+    private static void checkVersion(ByteBuffer header, String filename) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        header.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC))
+            throw new IOException("Not a graph snapshot: " + filename);
+        int version = header.getInt(8);
+        if (version != FORMAT_VERSION)
+            throw new IOException("Snapshot " + filename + " has version " + version
+                    + ", but version " + FORMAT_VERSION + " is needed");
+    }
+
+    /**
+     * Checks whether a file starts like a snapshot, without checking the rest
+     * of it.
+     *
+     * @param filename the path of the file to check
+     * @return true if the file starts with the snapshot magic bytes, false if
+     *         it does not or cannot be read
+     */
+    public static boolean isSnapshot(String filename) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) > 0) ;
+            return Arrays.equals(magic.array(), MAGIC) && !magic.hasRemaining();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks whether a snapshot can be used in place of the file that it was
+     * written from, by reading only the snapshot's header. The snapshot is
+     * current when the source file has the length that it recorded, and
+     * either the same modification time or the same checksum, so that a file
+     * which was only touched or copied does not need a new snapshot. A
+     * snapshot that is missing, unreadable, written with another version, or
+     * not written from a file is never current.
+     *
+     * @param filename   the path of the snapshot file to check
+     * @param sourceFile the path of the file that it should be written from
+     * @return true if the snapshot matches sourceFile, or false if it needs
+     *         to be written again
+     */
+    public static boolean isCurrent(String filename, String sourceFile) {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            while (header.hasRemaining() && channel.read(header) > 0) ;
+            if (header.hasRemaining())
+                return false;
+            checkVersion(header, filename);
+            long length = header.getLong(40);
+            Path source = Paths.get(sourceFile);
+            if (length < 0 || length != Files.size(source))
+                return false;
+            if (header.getLong(48) == Files.getLastModifiedTime(source).toMillis())
+                return true;
+            return header.getLong(56) == Source.checksum(source);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes the nodes and edges of a compact graph to a snapshot file that
+     * does not record a source file, like the method below.
+     *
+     * @param graph    the graph to write
+     * @param filename the path of the snapshot file to create or replace
+     * @throws IOException if the file cannot be written, or if the graph is
+     *                     too large for a single mapped snapshot
+     */
+    public static void write(CompactGraph<String> graph, String filename) throws IOException {
+        write(graph, filename, null);
+    }
+
+    /**
+     * Writes the nodes and edges of a compact graph to a snapshot file, along
+     * with its route tables when the graph is a DistanceMatrix. The snapshot
+     * is written to a temporary file next to filename first, and then moved
+     * over it, so readers never map a partly written snapshot, and processes
+     * that write the same snapshot at once do not interfere with each other.
+     *
+     * @param graph    the graph to write
+     * @param filename the path of the snapshot file to create or replace
+     * @param source   the file that the graph was loaded from, or null
+     * @throws IOException if the file cannot be written, or if the graph is
+     *                     too large for a single mapped snapshot
+     */
+    public static void write(CompactGraph<String> graph, String filename, Source source)
+            throws IOException {
+        int nodeCount = graph.names.size();
+        int edgeCount = graph.targets.length;
+        DistanceMatrix<String> matrix = graph instanceof DistanceMatrix
+                ? (DistanceMatrix<String>) graph : null;
+        byte[][] nameBytes = new byte[nodeCount][];
+        long totalNameBytes = 0;
+        for (int i = 0; i < nodeCount; i++) {
+            nameBytes[i] = graph.names.get(i).getBytes(StandardCharsets.UTF_8);
+            totalNameBytes += nameBytes[i].length;
+        }
+        // the index is kept at most half full, so probes stay short
+        int nameSlots = Integer.highestOneBit(Math.max(nodeCount, 1)) << 2;
+        long length = length(nodeCount, edgeCount, nameSlots, matrix != null, totalNameBytes);
+        if (length > Integer.MAX_VALUE)
+            throw new IOException("Graph is too large for a snapshot: " + length + " bytes");
+
+        Path target = Paths.get(filename).toAbsolutePath();
+        // created like any other file, so whoever can read the dot file can
+        // read its snapshot, and named for this thread, so that it is not
+        // truncated by another process or thread writing the same snapshot
+        Path temporary = target.resolveSibling(target.getFileName() + "."
+                + ProcessHandle.current().pid() + "." + Thread.currentThread().getId() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+                file.order(ByteOrder.LITTLE_ENDIAN);
+                file.put(MAGIC);
+                file.putInt(FORMAT_VERSION).putInt(nodeCount).putInt(edgeCount).putInt(nameSlots);
+                file.putInt(matrix != null ? 1 : 0).putInt(0).putLong(totalNameBytes);
+                file.putLong(source != null ? source.length : -1L);
+                file.putLong(source != null ? source.modified : 0L);
+                file.putLong(source != null ? source.checksum : 0L);
+                file.putLong(0L);
+                int cells = nodeCount * nodeCount;
+                for (double weight : graph.weights)
+                    file.putDouble(weight);
+                if (matrix != null)
+                    for (int i = 0; i < cells; i++)
+                        file.putDouble(matrix.costs.get(i));
+                for (int offset : graph.offsets)
+                    file.putInt(offset);
+                for (int edgeTarget : graph.targets)
+                    file.putInt(edgeTarget);
+                if (matrix != null) {
+                    for (int i = 0; i < cells; i++)
+                        file.putInt(matrix.nextHops.get(i));
+                    for (int i = 0; i < cells; i++)
+                        file.putInt(matrix.closest.get(i));
+                    for (int count : matrix.reachable)
+                        file.putInt(count);
+                }
+                int nameOffset = 0;
+                file.putInt(nameOffset);
+                for (byte[] name : nameBytes)
+                    file.putInt(nameOffset += name.length);
+                int[] index = new int[nameSlots];
+                for (int i = 0; i < nodeCount; i++) {
+                    int slot = hash(nameBytes[i]) & (nameSlots - 1);
+                    while (index[slot] != 0)
+                        slot = (slot + 1) & (nameSlots - 1);
+                    index[slot] = i + 1;
+                }
+                for (int slot : index)
+                    file.putInt(slot);
+                for (byte[] name : nameBytes)
+                    file.put(name);
+
+                CRC32C crc = new CRC32C();
+                crc.update(file.duplicate().position(HEADER_SIZE));
+                file.putLong(64, crc.getValue());
+                file.force();
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Describes how large the snapshot was and how long it took to map and
+     * check.
+     *
+     * @return a report on opening the snapshot, for logging
+     */
+    public String getReport() {
+        return report;
+    }
+
+    /**
+     * Checks whether this snapshot holds precomputed route tables, so that
+     * its queries are looked up instead of searched for.
+     *
+     * @return true if route tables were written with this snapshot
+     */
+    public boolean hasRoutes() {
+        return nextHops != null;
+    }
+
+    // returns the number of bytes in a snapshot with these section sizes
+    private static long length(int nodeCount, int edgeCount, int nameSlots, boolean routes,
+                               long nameBytes) {
+        long cells = routes ? (long) nodeCount * nodeCount : 0;
+        return HEADER_SIZE + (long) edgeCount * (Double.BYTES + Integer.BYTES)
+                + cells * (Double.BYTES + 2 * Integer.BYTES) + (routes ? nodeCount : 0) * (long) Integer.BYTES
+                + 2L * (nodeCount + 1) * Integer.BYTES + (long) nameSlots * Integer.BYTES + nameBytes;
+    }
+
+    // returns a little-endian view of the given bytes of the file
+    private static ByteBuffer section(ByteBuffer file, int start, int length) {
+        ByteBuffer view = file.duplicate();
+        view.position(start).limit(start + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // the same hash that DotFileParser uses for name bytes
+    private static int hash(byte[] name) {
+        int hash = 0;
+        for (byte b : name)
+            hash = 31 * hash + b;
+        return hash ^ (hash >>> 16);
+    }
+
+    // returns the id of the node with this name, or -1 if there is none
+    private int idOf(String name) {
+        if (name == null || nameIndex.capacity() == 0) return -1;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int mask = nameIndex.capacity() - 1;
+        for (int slot = hash(bytes) & mask; nameIndex.get(slot) != 0; slot = (slot + 1) & mask) {
+            int id = nameIndex.get(slot) - 1;
+            int start = nameOffsets.get(id);
+            if (nameOffsets.get(id + 1) - start != bytes.length) continue;
+            int i = 0;
+            while (i < bytes.length && names.get(start + i) == bytes[i])
+                i++;
+            if (i == bytes.length) return id;
+        }
+        return -1;
+    }
+
+    // returns the id of the node with this name
+    private int requireId(String name) {
+        int id = idOf(name);
+        if (id < 0)
+            throw new NoSuchElementException("No location named " + name);
+        return id;
+    }
+
+    // returns the name of a node, decoding it the first time it is needed
+    private String nameOf(int id) {
+        String name = decoded[id];
+        if (name == null) {
+            byte[] bytes = new byte[nameOffsets.get(id + 1) - nameOffsets.get(id)];
+            names.get(nameOffsets.get(id), bytes);
+            name = new String(bytes, StandardCharsets.UTF_8);
+            // racing threads decode equal Strings, so either one may be kept
+            decoded[id] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Not supported, since a snapshot is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean insertNode(String data) {
+        throw new UnsupportedOperationException("GraphSnapshot cannot be modified");
+    }
+
+    /**
+     * Not supported, since a snapshot is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean removeNode(String data) {
+        throw new UnsupportedOperationException("GraphSnapshot cannot be modified");
+    }
+
+    /**
+     * Check whether the graph contains a node with the provided data.
+     *
+     * @param data the node contents to check for
+     * @return true if data item is stored in a node within the graph, or
+     *         false otherwise
+     */
+    public boolean containsNode(String data) {
+        return idOf(data) >= 0;
+    }
+
+    /**
+     * Retrieves a list of all node data from this graph, in order of id.
+     *
+     * @return list of all node data
+     */
+    public List<String> getAllNodes() {
+        return new ArrayList<>(nodeList());
+    }
+
+    /**
+     * Retrieves all node data from this graph, in order of id, decoding each
+     * name as it is reached.
+     *
+     * @return iterable over all node data
+     */
+    public Iterable<String> allNodes() {
+        return Collections.unmodifiableList(nodeList());
+    }
+
+    // a view of the node names by id
+    private List<String> nodeList() {
+        return new AbstractList<String>() {
+            public String get(int index) {
+                if (index < 0 || index >= nodeCount)
+                    throw new IndexOutOfBoundsException(index);
+                return nameOf(index);
+            }
+
+            public int size() {
+                return nodeCount;
+            }
+        };
+    }
+
+    /**
+     * Return the number of nodes in the graph
+     *
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Not supported, since a snapshot is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean insertEdge(String pred, String succ, Double weight) {
+        throw new UnsupportedOperationException("GraphSnapshot cannot be modified");
+    }
+
+    /**
+     * Not supported, since a snapshot is read-only.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean removeEdge(String pred, String succ) {
+        throw new UnsupportedOperationException("GraphSnapshot cannot be modified");
+    }
+
+    /**
+     * Check if edge is in the graph.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return true if the edge is found in the graph, or false other
+     */
+    public boolean containsEdge(String pred, String succ) {
+        int source = idOf(pred);
+        int target = idOf(succ);
+        return source >= 0 && target >= 0 && findEdge(source, target) >= 0;
+    }
+
+    /**
+     * Return the data associated with a specific edge.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the non-negative data from the edge between those nodes
+     * @throws NoSuchElementException if either node or the edge between them
+     *                                are not found within this graph
+     */
+    public Double getEdge(String pred, String succ) {
+        int edge = findEdge(requireId(pred), requireId(succ));
+        if (edge < 0)
+            throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+        return weights.get(edge);
+    }
+
+    // returns the index of the edge from pred to succ, or -1 when there is none
+    private int findEdge(int pred, int succ) {
+        for (int e = offsets.get(pred); e < offsets.get(pred + 1); e++)
+            if (targets.get(e) == succ)
+                return e;
+        return -1;
+    }
+
+    /**
+     * Return the number of edges in the graph.
+     *
+     * @return the number of edges in the graph
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    // runs the same search as CompactGraph.computeShortestPaths, reading the
+    // edges from the mapped file
+    private int computeShortestPaths(int source, int target, int limit, double maxCost,
+                                     double[] cost, int[] pred, int[] order) {
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        Arrays.fill(pred, -1);
+        boolean[] settled = new boolean[nodeCount];
+        IndexedMinHeap heap = new IndexedMinHeap(nodeCount, 4);
+        cost[source] = 0.0;
+        heap.insertOrDecrease(source, 0.0);
+        int count = 0;
+
+        while (!heap.isEmpty()) {
+            int node = heap.removeMin();
+            settled[node] = true;
+            if (node != source) {
+                if (count == limit) break;
+                order[count++] = node;
+            }
+            if (node == target) break;
+            for (int e = offsets.get(node); e < offsets.get(node + 1); e++) {
+                int succ = targets.get(e);
+                double newCost = cost[node] + weights.get(e);
+                if (!settled[succ] && newCost < cost[succ] && newCost <= maxCost) {
+                    cost[succ] = newCost;
+                    pred[succ] = node;
+                    heap.insertOrDecrease(succ, newCost);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the nodes, edge weights, and cost of the shortest path from the
+     * node containing the start data to the node containing the end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes, edge weights, and cost of this shortest path
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    public ShortestPath<String> shortestPath(String start, String end) {
+        int source = requireId(start);
+        int target = requireId(end);
+        if (hasRoutes())
+            return lookUpPath(source, target);
+        double[] cost = new double[nodeCount];
+        int[] pred = new int[nodeCount];
+        computeShortestPaths(source, target, nodeCount, Double.POSITIVE_INFINITY, cost, pred,
+                new int[nodeCount]);
+        if (cost[target] == Double.POSITIVE_INFINITY)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+
+        ArrayList<String> path = new ArrayList<>();
+        ArrayList<Double> legs = new ArrayList<>();
+        for (int i = target; i != source; i = pred[i]) {
+            path.add(nameOf(i));
+            legs.add(weights.get(findEdge(pred[i], i)));
+        }
+        path.add(nameOf(source));
+        Collections.reverse(path);
+        Collections.reverse(legs);
+        return new ShortestPath<>(path, legs, cost[target]);
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path
+     * from the node with the provided start value through the node with the
+     * provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    public List<String> shortestPathData(String start, String end) {
+        return new ArrayList<>(shortestPath(start, end).getNodes());
+    }
+
+    /**
+     * Returns the cost of the path (sum over edge weights) of the shortest
+     * path from the node containing the start data to the node containing the
+     * end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either node cannot be found, or if
+     *                                there is no path from start to end
+     */
+    public double shortestPathCost(String start, String end) {
+        if (!hasRoutes())
+            return shortestPath(start, end).getCost();
+        double cost = costs.get(requireId(start) * nodeCount + requireId(end));
+        if (cost == Double.POSITIVE_INFINITY)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+        return cost;
+    }
+
+    // follows the precomputed next hops from source to target, like
+    // DistanceMatrix.shortestPath
+    private ShortestPath<String> lookUpPath(int source, int target) {
+        int row = source * nodeCount;
+        if (nextHops.get(row + target) < 0)
+            throw new NoSuchElementException("There is no path that connects start node to destination node");
+
+        ArrayList<String> path = new ArrayList<>();
+        ArrayList<Double> legs = new ArrayList<>();
+        path.add(nameOf(source));
+        for (int node = source; node != target; ) {
+            int next = nextHops.get(node * nodeCount + target);
+            legs.add(weights.get(findEdge(node, next)));
+            path.add(nameOf(next));
+            node = next;
+        }
+        return new ShortestPath<>(path, legs, costs.get(row + target));
+    }
+
+    /**
+     * Returns the data of the k nodes that are cheapest to reach from the
+     * start node, ordered from closest to farthest.
+     *
+     * @param start the data item in the starting node for the search
+     * @param k     the maximum number of destinations to return
+     * @return list of data items from the k closest nodes (excluding start)
+     * @throws NoSuchElementException if the start node cannot be found
+     */
+    public List<String> closestNodes(String start, int k) {
+        if (hasRoutes()) {
+            int source = requireId(start);
+            int count = Math.min(Math.max(k, 0), reachable.get(source));
+            ArrayList<String> closestNames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++)
+                closestNames.add(nameOf(closest.get(source * nodeCount + i)));
+            return closestNames;
+        }
+        int[] order = new int[nodeCount];
+        int count = computeShortestPaths(requireId(start), -1, Math.max(k, 0),
+                Double.POSITIVE_INFINITY, new double[nodeCount], new int[nodeCount], order);
+        ArrayList<String> closest = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            closest.add(nameOf(order[i]));
+        return closest;
+    }
+
+    /**
+     * Returns the data of every node that can be reached from the start node
+     * by a path costing at most maxCost, mapped to that path's cost and
+     * ordered from closest to farthest.
+     *
+     * @param start   the data item in the starting node for the search
+     * @param maxCost the largest path cost that a returned node may have
+     * @return map from the data of each reachable node (excluding start) to
+     *         the cost of its shortest path
+     * @throws NoSuchElementException if the start node cannot be found
+     */
+    public Map<String, Double> nodesWithinCost(String start, double maxCost) {
+        if (hasRoutes()) {
+            int source = requireId(start);
+            int row = source * nodeCount;
+            LinkedHashMap<String, Double> within = new LinkedHashMap<>();
+            for (int i = 0; i < reachable.get(source); i++) {
+                int node = closest.get(row + i);
+                double cost = costs.get(row + node);
+                if (cost > maxCost)
+                    break;
+                within.put(nameOf(node), cost);
+            }
+            return within;
+        }
+        double[] cost = new double[nodeCount];
+        int[] order = new int[nodeCount];
+        int count = computeShortestPaths(requireId(start), -1, nodeCount, maxCost, cost,
+                new int[nodeCount], order);
+        LinkedHashMap<String, Double> within = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++)
+            within.put(nameOf(order[i]), cost[order[i]]);
+        return within;
+    }
+}
@@ -1,5 +1,7 @@
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -39,6 +41,10 @@ public class Graph_Placeholder implements GraphADT<String, Double> {
   public List<String> getAllNodes() {
     return path;
   }
+
+  public Iterable<String> allNodes() {
+    return path;
+  }
     
   public int getNodeCount() {
     return path.size();
@@ -91,4 +97,29 @@ public class Graph_Placeholder implements GraphADT<String, Double> {
     return sum;
   }
 
+  public ShortestPath<String> shortestPath(String start, String end) {
+    List<String> nodes = shortestPathData(start, end);
+    List<Double> legs = new ArrayList<>();
+    for(int i=1;i<nodes.size();i++) legs.add(getEdge(nodes.get(i-1), nodes.get(i)));
+    return new ShortestPath<>(nodes, legs, shortestPathCost(start, end));
+  }
+
+  public List<String> closestNodes(String start, int k) {
+    int index = path.indexOf(start);
+    if(index < 0) throw new NoSuchElementException();
+    return new ArrayList<>(path.subList(index+1, Math.min(path.size(), index+1+k)));
+  }
+
+  public Map<String, Double> nodesWithinCost(String start, double maxCost) {
+    int index = path.indexOf(start);
+    if(index < 0) throw new NoSuchElementException();
+    Map<String, Double> reachable = new LinkedHashMap<>();
+    double sum = 0;
+    for(int i=index+1;i<path.size() && sum+i <= maxCost;i++) {
+      sum += i;
+      reachable.put(path.get(i), sum);
+    }
+    return reachable;
+  }
+
 }
@@ -1,6 +1,8 @@
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 import org.junit.jupiter.api.Test;
 
@@ -72,12 +74,15 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
      */
     public void put(KeyType key, ValueType value) throws IllegalArgumentException {
         if(key == null) throw new NullPointerException("key cannot be null");
-        if(containsKey(key)) throw new IllegalArgumentException("key already exists");
-        if (table[Math.abs(key.hashCode()) % this.capacity].isEmpty()){
-            size++;
+        LinkedList<Pair> bucket = table[indexOf(key)];
+        // a single pass over the chain checks for a duplicate before adding
+        for (Pair i : bucket) {
+            if (i.key.equals(key)) throw new IllegalArgumentException("key already exists");
         }
-        table[Math.abs(key.hashCode()) % this.capacity].add(new Pair(key, value));
+        bucket.add(new Pair(key, value));
+        size++;
 
+        // the load factor counts entries, not occupied buckets
         if((double)size / this.capacity >= 0.8)
             resize();
     }
@@ -92,10 +97,8 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
      */
     public boolean containsKey(KeyType key) {
         if (key == null) return false;
-        if (table[Math.abs(key.hashCode()) % this.capacity] != null) {
-            for (Pair i : table[Math.abs(key.hashCode()) % this.capacity]) {
-                if (i != null && i.key.equals(key)) return true;
-            }
+        for (Pair i : table[indexOf(key)]) {
+            if (i.key.equals(key)) return true;
         }
         return false;
     }
@@ -111,10 +114,8 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
      */
     public ValueType get(KeyType key) throws NoSuchElementException {
         if (key == null) throw new NoSuchElementException();
-        if (table[Math.abs(key.hashCode()) % this.capacity] != null) {
-            for (Pair i : table[Math.abs(key.hashCode()) % this.capacity]) {
-                if (i != null && i.key.equals(key)) return i.value;
-            }
+        for (Pair i : table[indexOf(key)]) {
+            if (i.key.equals(key)) return i.value;
         }
         throw new NoSuchElementException();
     }
@@ -129,18 +130,14 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
      *                                collection
      */
     public ValueType remove(KeyType key) throws NoSuchElementException {
-        int indexCounter = 0;
         if (key == null) throw new NoSuchElementException();
-        if (table[Math.abs(key.hashCode()) % this.capacity] != null) {
-            for (Pair i : table[Math.abs(key.hashCode()) % this.capacity]) {
-                if (i.key.equals(key)) {
-                    ValueType returnValue = i.value;
-                    table[Math.abs(key.hashCode()) % this.capacity].remove(indexCounter);
-                    if (table[Math.abs(key.hashCode()) % this.capacity].isEmpty())
-                        this.size--;
-                    return returnValue;
-                }
-                indexCounter++;
+        Iterator<Pair> chain = table[indexOf(key)].iterator();
+        while (chain.hasNext()) {
+            Pair i = chain.next();
+            if (i.key.equals(key)) {
+                chain.remove();
+                this.size--;
+                return i.value;
             }
         }
         throw new NoSuchElementException();
@@ -150,9 +147,11 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
     /**
      * Removes all key,value pairs from this collection.
      */
-    @SuppressWarnings("unchecked")
     public void clear() {
-        this.table = (LinkedList<Pair>[]) new LinkedList[this.capacity];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = new LinkedList<>();
+        }
+        this.size = 0;
     }
 
 
@@ -162,11 +161,7 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
      * @return the number of keys stored in this collection
      */
     public int getSize() {
-        int size = 0;
-        for (int i = 0; i < table.length; i++) {
-            if (table[i] != null) size += table[i].size();
-        }
-        return size;
+        return this.size;
     }
 
 
@@ -186,17 +181,82 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
     public List<KeyType> getKeys(){
         List<KeyType> keys = new LinkedList<>();
         for(int i = 0; i < this.capacity; i++){
-            if (table[i] != null) {
-                for (Pair p : table[i]) {
-                    keys.add(p.key);
-                }
+            for (Pair p : table[i]) {
+                keys.add(p.key);
             }
         }
         return keys;
     }
 
     /**
-     * Resizes the table array if the number of indices filled is >=80% of the table's capacity
+     * Returns an iterator that walks the table's chains in place, one index
+     * after another, without copying the keys into a list.
+     * @return an iterator over the keys stored in this collection
+     */
+    public Iterator<KeyType> iterator() {
+        final LinkedList<Pair>[] buckets = this.table;
+        return new Iterator<KeyType>() {
+            private int index = 0;
+            private Iterator<Pair> chain = buckets[0].iterator();
+
+            public boolean hasNext() {
+                // move on to the next index whenever this chain is used up
+                while (!chain.hasNext()) {
+                    if (++index >= buckets.length) return false;
+                    chain = buckets[index].iterator();
+                }
+                return true;
+            }
+
+            public KeyType next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return chain.next().key;
+            }
+        };
+    }
+
+    /**
+     * Passes each key,value pair to action, walking the table's chains in place.
+     * @param action receives each key along with the value it maps to
+     */
+    public void forEachEntry(BiConsumer<? super KeyType, ? super ValueType> action) {
+        for (LinkedList<Pair> chain : table) {
+            for (Pair p : chain) {
+                action.accept(p.key, p.value);
+            }
+        }
+    }
+
+    /**
+     * Counts how many chains in the table have each length, which shows how
+     * many keys a lookup has to compare on average and in the worst case.
+     *
+     * @return an array whose element at index n is the number of table
+     *         indices holding exactly n keys, up to the longest chain
+     */
+    public int[] getChainLengthHistogram() {
+        int longest = 0;
+        for (LinkedList<Pair> chain : table) {
+            longest = Math.max(longest, chain.size());
+        }
+        int[] histogram = new int[longest + 1];
+        for (LinkedList<Pair> chain : table) {
+            histogram[chain.size()]++;
+        }
+        return histogram;
+    }
+
+    /**
+     * Finds the table index for a key. Taking the remainder before the
+     * absolute value gives the same index as Math.abs(hashCode) % capacity,
+     * but cannot overflow for a hashCode of Integer.MIN_VALUE.
+     */
+    private int indexOf(KeyType key) {
+        return Math.abs(key.hashCode() % this.capacity);
+    }
+
+    /**
+     * Resizes the table array once the number of keys is >=80% of the table's capacity
      */
     @SuppressWarnings("unchecked")
     private void resize() {
@@ -211,7 +271,7 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
         // re-hashing
         for (int i = 0; i < this.capacity; i++) {
             for (Pair p : table[i]) {
-                newTable[Math.abs(p.key.hashCode()) % (this.capacity*2)].add(p);
+                newTable[Math.abs(p.key.hashCode() % (this.capacity*2))].add(p);
             }
         }
         this.capacity *= 2;
@@ -408,4 +468,67 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType,ValueTyp
             }
         }
     }
+
+    /**
+     * Tests that keys which share a table index are each counted, so that the
+     * table grows with the number of keys, and tests the chain length histogram
+     */
+    @Test
+    public void test6() {
+        HashtableMap<String, Integer> test = new HashtableMap<String, Integer>(8);
+        // "Aa" and "BB" have the same hashCode, so all of these share one chain
+        test.put("AaAa", 1);
+        test.put("AaBB", 2);
+        test.put("BBAa", 3);
+        test.put("BBBB", 4);
+        assertTrue(test.getSize() == 4);
+        assertTrue(test.getChainLengthHistogram().length == 5);
+        assertTrue(test.getChainLengthHistogram()[4] == 1);
+        assertTrue(test.getChainLengthHistogram()[0] == 7);
+
+        // removing one of them leaves the other three counted
+        test.remove("AaBB");
+        assertTrue(test.getSize() == 3);
+
+        // 7 keys make the table over 80% full even though most share an index
+        test.put("AaBB", 2);
+        test.put("x", 5);
+        test.put("y", 6);
+        assertTrue(test.getCapacity() == 8);
+        test.put("z", 7);
+        assertTrue(test.getCapacity() == 16);
+        assertTrue(test.getSize() == 7);
+
+        // clearing the map leaves it empty but still usable
+        test.clear();
+        assertTrue(test.getSize() == 0);
+        test.put("AaAa", 1);
+        assertTrue(test.getSize() == 1 && test.get("AaAa") == 1);
+    }
+
+    /**
+     * Tests that iterating, streaming, and visiting entries reach every key
+     * exactly once, including keys that share a chain
+     */
+    @Test
+    public void test7() {
+        HashtableMap<String, Integer> test = new HashtableMap<String, Integer>(8);
+        test.put("AaAa", 1);
+        test.put("BBBB", 2);
+        test.put("x", 3);
+
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        for (String key : test) {
+            assertTrue(seen.add(key));
+        }
+        assertTrue(seen.equals(java.util.Set.of("AaAa", "BBBB", "x")));
+        assertTrue(test.keyStream().count() == 3);
+
+        int[] sum = {0};
+        test.forEachEntry((key, value) -> sum[0] += value);
+        assertTrue(sum[0] == 6);
+
+        // an empty map has nothing to iterate over
+        assertFalse(new HashtableMap<String, Integer>().iterator().hasNext());
+    }
 }
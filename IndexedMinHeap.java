@@ -0,0 +1,168 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An indexed d-ary min-heap of int keys from 0 up to a fixed capacity, each
+ * with a double priority. The heap remembers where each key is stored, so the
+ * priority of a key that is already queued can be lowered in place rather
+ * than queueing a second copy of it. This keeps the heap at most capacity
+ * entries large, and none of its operations allocate any objects.
+ */
+public class IndexedMinHeap {
+    private final int arity;
+    private final int[] heap;          // keys, in heap order
+    private final int[] position;      // index of each key within heap, or -1
+    private final double[] priorities; // priority of each key, indexed by key
+    private int size;
+
+    /**
+     * Creates an empty heap for the keys 0 through capacity-1.
+     *
+     * @param capacity the number of distinct keys that this heap can hold
+     * @param arity    the number of children of each entry, which must be at
+     *                 least 2 (larger values make the heap shallower)
+     * @throws IllegalArgumentException if arity is less than 2
+     */
+    public IndexedMinHeap(int capacity, int arity) {
+        if (arity < 2)
+            throw new IllegalArgumentException("arity must be at least 2");
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        this.priorities = new double[capacity];
+        Arrays.fill(position, -1);
+        this.size = 0;
+    }
+
+    /**
+     * Checks whether this heap is empty.
+     *
+     * @return true if no keys are queued, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Retrieves the number of keys that are queued.
+     *
+     * @return the number of keys in this heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a key is currently queued.
+     *
+     * @param key the key to check
+     * @return true if key is in this heap, false otherwise
+     */
+    public boolean contains(int key) {
+        return position[key] >= 0;
+    }
+
+    /**
+     * Queues a key with the given priority, or lowers the priority of a key
+     * that is already queued. Nothing changes when the key is already queued
+     * with a priority that is not higher than the one given.
+     *
+     * @param key      the key to queue
+     * @param priority the priority to queue it with
+     * @return true if the key was added or its priority lowered, false if it
+     *         was already queued with an equal or lower priority
+     */
+    public boolean insertOrDecrease(int key, double priority) {
+        int index = position[key];
+        if (index < 0) {
+            index = size++;
+            heap[index] = key;
+            position[key] = index;
+        } else if (priority >= priorities[key]) {
+            return false;
+        }
+        priorities[key] = priority;
+        siftUp(index);
+        return true;
+    }
+
+    /**
+     * Retrieves the priority of the key at the top of this heap.
+     *
+     * @return the smallest priority in this heap
+     * @throws NoSuchElementException if this heap is empty
+     */
+    public double peekPriority() {
+        if (size == 0)
+            throw new NoSuchElementException("heap is empty");
+        return priorities[heap[0]];
+    }
+
+    /**
+     * Removes and returns the key with the smallest priority.
+     *
+     * @return the key that had the smallest priority
+     * @throws NoSuchElementException if this heap is empty
+     */
+    public int removeMin() {
+        if (size == 0)
+            throw new NoSuchElementException("heap is empty");
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return min;
+    }
+
+    /**
+     * Removes every key from this heap, in time proportional to its size.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            position[heap[i]] = -1;
+        size = 0;
+    }
+
+    // moves the entry at index up until its parent has a smaller priority
+    private void siftUp(int index) {
+        int key = heap[index];
+        double priority = priorities[key];
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            if (priorities[heap[parent]] <= priority)
+                break;
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = key;
+        position[key] = index;
+    }
+
+    // moves the entry at index down until none of its children are smaller
+    private void siftDown(int index) {
+        int key = heap[index];
+        double priority = priorities[key];
+        while (true) {
+            int first = index * arity + 1;
+            if (first >= size)
+                break;
+            int last = Math.min(first + arity, size);
+            int smallest = first;
+            for (int child = first + 1; child < last; child++)
+                if (priorities[heap[child]] < priorities[heap[smallest]])
+                    smallest = child;
+            if (priorities[heap[smallest]] >= priority)
+                break;
+            heap[index] = heap[smallest];
+            position[heap[index]] = index;
+            index = smallest;
+        }
+        heap[index] = key;
+        position[key] = index;
+    }
+}
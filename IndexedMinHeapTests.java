@@ -0,0 +1,96 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Tests IndexedMinHeap directly, rather than through the searches that use
+ * it.
+ */
+public class IndexedMinHeapTests {
+    /**
+     * Tests that queueing a key that is already in the heap only lowers its
+     * priority in place, and never adds a second copy of it
+     */
+    @Test
+    public void indexedMinHeapTest1() {
+        IndexedMinHeap heap = new IndexedMinHeap(4, 2);
+        assertTrue(heap.insertOrDecrease(1, 5.0));
+        assertTrue(heap.insertOrDecrease(2, 3.0));
+        // a higher or equal priority leaves the key where it is
+        assertFalse(heap.insertOrDecrease(1, 7.0));
+        assertFalse(heap.insertOrDecrease(1, 5.0));
+        assertEquals(2, heap.size());
+        assertEquals(3.0, heap.peekPriority(), 0.0);
+
+        // a lower priority moves the key to the top
+        assertTrue(heap.insertOrDecrease(1, 1.0));
+        assertEquals(2, heap.size());
+        assertEquals(1.0, heap.peekPriority(), 0.0);
+        assertEquals(1, heap.removeMin());
+        assertFalse(heap.contains(1));
+        assertEquals(2, heap.removeMin());
+    }
+
+    /**
+     * Tests that a 4-ary heap removes keys in order of priority, including
+     * after priorities are lowered deep inside it
+     */
+    @Test
+    public void indexedMinHeapTest2() {
+        int n = 50;
+        IndexedMinHeap heap = new IndexedMinHeap(n, 4);
+        // priorities from n to 2n-1 that are inserted out of order
+        for (int key = 0; key < n; key++)
+            heap.insertOrDecrease(key, (key * 37) % n + n);
+        // every fifth key is lowered below all of the others, in reverse order
+        for (int key = 5; key < n; key += 5)
+            heap.insertOrDecrease(key, n - key);
+
+        double previous = Double.NEGATIVE_INFINITY;
+        int removed = 0;
+        while (!heap.isEmpty()) {
+            double priority = heap.peekPriority();
+            assertTrue(priority >= previous);
+            int key = heap.removeMin();
+            assertFalse(heap.contains(key));
+            if (key > 0 && key % 5 == 0)
+                assertEquals(n - key, priority, 0.0);
+            else
+                assertEquals((key * 37) % n + n, priority, 0.0);
+            previous = priority;
+            removed++;
+        }
+        assertEquals(n, removed);
+    }
+
+    /**
+     * Tests that a heap that is drained or cleared is empty, reports so, and
+     * can be filled again
+     */
+    @Test
+    public void indexedMinHeapTest3() {
+        IndexedMinHeap heap = new IndexedMinHeap(3, 4);
+        assertTrue(heap.isEmpty());
+        heap.insertOrDecrease(0, 2.0);
+        heap.insertOrDecrease(2, 1.0);
+        assertFalse(heap.isEmpty());
+        heap.removeMin();
+        heap.removeMin();
+        assertTrue(heap.isEmpty());
+        assertEquals(0, heap.size());
+        assertThrows(NoSuchElementException.class, () -> heap.removeMin());
+        assertThrows(NoSuchElementException.class, () -> heap.peekPriority());
+
+        heap.insertOrDecrease(1, 4.0);
+        heap.insertOrDecrease(0, 3.0);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(0));
+        assertFalse(heap.contains(1));
+        assertTrue(heap.insertOrDecrease(1, 6.0));
+        assertEquals(1, heap.removeMin());
+        assertTrue(heap.isEmpty());
+    }
+}
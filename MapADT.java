@@ -1,11 +1,18 @@
+import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * This abstract data type represents a collection that maps keys to values,
  * in which duplicate keys are not allowed (each key maps to exactly one value).
+ * Its keys can be traversed in place, through iterator, forEach, or
+ * keyStream, without copying them into a list first. The collection must not
+ * be modified while such a traversal is in progress.
  */
-public interface MapADT<KeyType, ValueType> {
+public interface MapADT<KeyType, ValueType> extends Iterable<KeyType> {
 
     /**
      * Adds a new key,value pair/mapping to this collection.
@@ -65,5 +72,29 @@ public interface MapADT<KeyType, ValueType> {
      */
     public List<KeyType> getKeys();
 
+    /**
+     * Returns an iterator that walks this collection's keys in place, in the
+     * order they are stored, without copying them.
+     * @return an iterator over the keys stored in this collection
+     */
+    @Override
+    public Iterator<KeyType> iterator();
+
+    /**
+     * Passes each key,value pair in this collection to action, in the order
+     * they are stored, without copying them.
+     * @param action receives each key along with the value it maps to
+     */
+    public void forEachEntry(BiConsumer<? super KeyType, ? super ValueType> action);
+
+    /**
+     * Returns a sequential stream over this collection's keys, which reads
+     * them in place as the stream is consumed.
+     * @return a stream of the keys stored in this collection
+     */
+    public default Stream<KeyType> keyStream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
 }
 
@@ -0,0 +1,17 @@
+/**
+ * Creates the empty maps that a graph stores its nodes in, and any other maps
+ * that it keys by node data, so that one MapADT implementation can be chosen
+ * for all of them. Any no-argument MapADT constructor can be passed as one,
+ * such as HashtableMap::new or OpenAddressingMap::new.
+ */
+public interface MapFactory {
+
+    /**
+     * Creates a new empty map.
+     *
+     * @param <KeyType>   Datatype for the Key
+     * @param <ValueType> Datatype that the key maps to
+     * @return an empty map
+     */
+    public <KeyType, ValueType> MapADT<KeyType, ValueType> create();
+}
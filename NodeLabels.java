@@ -0,0 +1,97 @@
+import java.util.Arrays;
+
+/**
+ * The state that one graph search keeps for each node, stored in arrays that
+ * are indexed by the node's int id rather than in maps keyed by its data: a
+ * bit that marks the node as settled, the cost of the cheapest path queued
+ * to it so far, and a label object that describes that path. Looking a node
+ * up is then an array access, and never calls hashCode or equals on the
+ * node's data.
+ * <p>
+ * Ids at or beyond the capacity are treated as unsettled and unqueued, and
+ * the arrays grow when such an id is settled or labeled, so a search still
+ * works when nodes are inserted into the graph while it runs.
+ *
+ * @param <LabelType> the type of object that describes a node's path
+ */
+public class NodeLabels<LabelType> {
+    private long[] settled;       // one bit per id
+    private double[] costs;       // cost of each id's label, or infinity
+    private Object[] labels;      // label of each id, or null
+
+    /**
+     * Creates empty labels for the ids 0 through capacity-1.
+     *
+     * @param capacity the number of ids to make room for up front
+     */
+    public NodeLabels(int capacity) {
+        capacity = Math.max(capacity, 1);
+        settled = new long[(capacity + 63) >>> 6];
+        costs = new double[capacity];
+        labels = new Object[capacity];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Checks whether a node has been settled.
+     *
+     * @param id the id of the node to check
+     * @return true if settle was called with id, false otherwise
+     */
+    public boolean isSettled(int id) {
+        int word = id >>> 6;
+        return word < settled.length && (settled[word] & (1L << id)) != 0;
+    }
+
+    /**
+     * Marks a node as settled.
+     *
+     * @param id the id of the node to settle
+     */
+    public void settle(int id) {
+        int word = id >>> 6;
+        if (word >= settled.length)
+            settled = Arrays.copyOf(settled, Math.max(word + 1, settled.length * 2));
+        settled[word] |= 1L << id;
+    }
+
+    /**
+     * Retrieves the cost of the path that a node is labeled with.
+     *
+     * @param id the id of the node to look up
+     * @return that cost, or positive infinity if the node has no label
+     */
+    public double cost(int id) {
+        return id < costs.length ? costs[id] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Retrieves the object that a node is labeled with.
+     *
+     * @param id the id of the node to look up
+     * @return that label, or null if the node has no label
+     */
+    @SuppressWarnings("unchecked")
+    public LabelType label(int id) {
+        return id < labels.length ? (LabelType) labels[id] : null;
+    }
+
+    /**
+     * Labels a node with a path and its cost, replacing any earlier label.
+     *
+     * @param id    the id of the node to label
+     * @param cost  the cost of the path
+     * @param label the object that describes the path
+     */
+    public void label(int id, double cost, LabelType label) {
+        if (id >= costs.length) {
+            int capacity = Math.max(id + 1, costs.length * 2);
+            int old = costs.length;
+            costs = Arrays.copyOf(costs, capacity);
+            Arrays.fill(costs, old, capacity, Double.POSITIVE_INFINITY);
+            labels = Arrays.copyOf(labels, capacity);
+        }
+        costs[id] = cost;
+        labels[id] = label;
+    }
+}
@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * A MapADT that stores its keys, values, and key hashes in three parallel
+ * arrays instead of in chains of linked list nodes. A key lives at the slot
+ * its hash selects, or at the next free slot after that one (linear probing),
+ * so a lookup reads neighbouring array entries rather than following
+ * references. The capacity is always a power of two, so a hash is turned into
+ * a slot with a bit mask, and each key's hash is computed once and kept, so
+ * probing only calls equals on keys whose full hash matches.
+ * <p>
+ * Removing a key shifts later keys of the same probe run back into the gap
+ * (backward shift deletion), so no tombstones build up and lookups never have
+ * to skip over removed entries.
+ *
+ * @param <KeyType>   Datatype for the Key
+ * @param <ValueType> Datatype that the key maps to
+ */
+public class OpenAddressingMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    // the table is doubled before more than 3/4 of its slots are full
+    private static final int MAX_LOAD_NUMERATOR = 3;
+    private static final int MAX_LOAD_DENOMINATOR = 4;
+
+    private Object[] keys;   // null marks an empty slot
+    private Object[] values;
+    private int[] hashes;    // spread hash of the key in each full slot
+    private int mask;        // capacity - 1
+    private int size;
+
+    /**
+     * Creates an empty map that can hold at least the given number of keys
+     * before it needs to grow.
+     *
+     * @param expectedSize the number of keys expected to be stored
+     */
+    public OpenAddressingMap(int expectedSize) {
+        int capacity = 16;
+        while ((long) capacity * MAX_LOAD_NUMERATOR / MAX_LOAD_DENOMINATOR < expectedSize)
+            capacity <<= 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Creates an empty map with the default capacity of 16 slots.
+     */
+    public OpenAddressingMap() {
+        this(0);
+    }
+
+    // replaces the arrays with empty ones of the given power of two length
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        size = 0;
+    }
+
+    // mixes the high bits of a hash code into the low bits that the mask keeps
+    private static int spread(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    // returns the slot holding key, or -1 if key is not in this map
+    private int find(Object key, int hash) {
+        for (int i = hash & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && keys[i].equals(key))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection. It is ok that the
+     * value is null.
+     *
+     * @param key   the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException     if key is null
+     */
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        if (key == null) throw new NullPointerException("key cannot be null");
+        int hash = spread(key);
+        // the probe that checks for a duplicate also finds the free slot
+        int i = hash & mask;
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (hashes[i] == hash && keys[i].equals(key))
+                throw new IllegalArgumentException("key already exists");
+        }
+        keys[i] = key;
+        values[i] = value;
+        hashes[i] = hash;
+        size++;
+        if ((long) size * MAX_LOAD_DENOMINATOR > (long) keys.length * MAX_LOAD_NUMERATOR)
+            resize();
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     *
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the
+     *         key doesn't map to a value
+     */
+    public boolean containsKey(KeyType key) {
+        return key != null && find(key, spread(key)) >= 0;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to.
+     *
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this
+     *                                collection
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        int i = key == null ? -1 : find(key, spread(key));
+        if (i < 0) throw new NoSuchElementException();
+        return (ValueType) values[i];
+    }
+
+    /**
+     * Remove the mapping for a key from this collection.
+     *
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this
+     *                                collection
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        int gap = key == null ? -1 : find(key, spread(key));
+        if (gap < 0) throw new NoSuchElementException();
+        ValueType removed = (ValueType) values[gap];
+
+        // move later keys of this probe run back, unless that would place one
+        // before the slot its hash selects
+        for (int i = (gap + 1) & mask; keys[i] != null; i = (i + 1) & mask) {
+            int home = hashes[i] & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                hashes[gap] = hashes[i];
+                gap = i;
+            }
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes all key,value pairs from this collection, keeping its capacity.
+     */
+    public void clear() {
+        allocate(keys.length);
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     *
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     *
+     * @return the number of slots in the underlying arrays
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves this collection's keys.
+     *
+     * @return a list of the keys stored in this collection, in slot order
+     */
+    @SuppressWarnings("unchecked")
+    public List<KeyType> getKeys() {
+        List<KeyType> list = new ArrayList<>(size);
+        for (Object key : keys) {
+            if (key != null) list.add((KeyType) key);
+        }
+        return list;
+    }
+
+    /**
+     * Returns an iterator that walks the key array in place, skipping empty
+     * slots, without copying the keys into a list.
+     *
+     * @return an iterator over the keys stored in this collection
+     */
+    public Iterator<KeyType> iterator() {
+        final Object[] slots = this.keys;
+        return new Iterator<KeyType>() {
+            private int index = nextFull(0);
+
+            // returns the first slot at or after i that holds a key
+            private int nextFull(int i) {
+                while (i < slots.length && slots[i] == null)
+                    i++;
+                return i;
+            }
+
+            public boolean hasNext() {
+                return index < slots.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            public KeyType next() {
+                if (index >= slots.length) throw new NoSuchElementException();
+                KeyType key = (KeyType) slots[index];
+                index = nextFull(index + 1);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * Passes each key,value pair to action, walking the arrays in place.
+     *
+     * @param action receives each key along with the value it maps to
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachEntry(BiConsumer<? super KeyType, ? super ValueType> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) action.accept((KeyType) keys[i], (ValueType) values[i]);
+        }
+    }
+
+    // doubles the capacity, reinserting each key by its cached hash
+    private void resize() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = oldHashes[j] & mask;
+            while (keys[i] != null)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+            hashes[i] = oldHashes[j];
+            size++;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Tests OpenAddressingMap, which declares more than one constructor, so
+ * JUnit cannot run tests declared inside it.
+ */
+public class OpenAddressingMapTests {
+    /**
+     * Tests put, get, and containsKey, including duplicate and null keys
+     */
+    @Test
+    public void openAddressingMapTest1() {
+        OpenAddressingMap<String, String> test = new OpenAddressingMap<>();
+        test.put("test", "true");
+        test.put("tec", null);
+        assertTrue(test.containsKey("test"));
+        assertEquals("true", test.get("test"));
+        assertTrue(test.containsKey("tec"));
+        assertNull(test.get("tec"));
+        assertFalse(test.containsKey("tent"));
+        assertFalse(test.containsKey(null));
+        assertThrows(IllegalArgumentException.class, () -> test.put("test", "false"));
+        assertThrows(NullPointerException.class, () -> test.put(null, "false"));
+        assertThrows(NoSuchElementException.class, () -> test.get("tent"));
+        assertThrows(NoSuchElementException.class, () -> test.get(null));
+        assertEquals(2, test.getSize());
+    }
+
+    /**
+     * Tests that removing keys from the middle of a probe run leaves every
+     * other key of that run reachable
+     */
+    @Test
+    public void openAddressingMapTest2() {
+        OpenAddressingMap<String, Integer> test = new OpenAddressingMap<>();
+        // "Aa" and "BB" have the same hashCode, so these 8 keys all have the
+        // same hash and are stored in a single probe run
+        List<String> keys = new ArrayList<>();
+        for (String a : List.of("Aa", "BB"))
+            for (String b : List.of("Aa", "BB"))
+                for (String c : List.of("Aa", "BB"))
+                    keys.add(a + b + c);
+        for (int i = 0; i < keys.size(); i++)
+            test.put(keys.get(i), i);
+        test.put("other", -1);
+        for (int i = 0; i < keys.size(); i += 3)
+            assertEquals(Integer.valueOf(i), test.remove(keys.get(i)));
+        for (int i = 0; i < keys.size(); i++) {
+            if (i % 3 == 0)
+                assertFalse(test.containsKey(keys.get(i)));
+            else
+                assertEquals(Integer.valueOf(i), test.get(keys.get(i)));
+        }
+        assertEquals(Integer.valueOf(-1), test.get("other"));
+        assertEquals(6, test.getSize());
+        assertThrows(NoSuchElementException.class, () -> test.remove("AaAaAa"));
+        assertThrows(NoSuchElementException.class, () -> test.remove(null));
+    }
+
+    /**
+     * Tests that the capacity stays a power of two and doubles before the
+     * table is more than 3/4 full, and that clear keeps that capacity
+     */
+    @Test
+    public void openAddressingMapTest3() {
+        OpenAddressingMap<String, Integer> test = new OpenAddressingMap<>();
+        assertEquals(16, test.getCapacity());
+        for (int i = 0; i < 12; i++)
+            test.put("key" + i, i);
+        assertEquals(16, test.getCapacity());
+        test.put("key12", 12);
+        assertEquals(32, test.getCapacity());
+        for (int i = 0; i <= 12; i++)
+            assertEquals(Integer.valueOf(i), test.get("key" + i));
+        assertEquals(13, test.getKeys().size());
+        assertEquals(64, new OpenAddressingMap<String, Integer>(40).getCapacity());
+
+        test.clear();
+        assertEquals(0, test.getSize());
+        assertEquals(32, test.getCapacity());
+        assertFalse(test.containsKey("key0"));
+    }
+
+    /**
+     * Tests that iterating, streaming, and visiting entries reach every key
+     * exactly once, and that an exhausted iterator throws
+     */
+    @Test
+    public void openAddressingMapTest4() {
+        OpenAddressingMap<String, Integer> test = new OpenAddressingMap<>();
+        for (int i = 0; i < 20; i++)
+            test.put("key" + i, i);
+        test.remove("key7");
+
+        Set<String> seen = new HashSet<>();
+        Iterator<String> keys = test.iterator();
+        while (keys.hasNext())
+            assertTrue(seen.add(keys.next()));
+        assertEquals(19, seen.size());
+        assertFalse(seen.contains("key7"));
+        assertThrows(NoSuchElementException.class, keys::next);
+        assertEquals(19, test.keyStream().filter(key -> key.startsWith("key")).count());
+
+        int[] sum = {0};
+        test.forEachEntry((key, value) -> sum[0] += value);
+        assertEquals(190 - 7, sum[0]);
+    }
+}
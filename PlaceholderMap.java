@@ -1,6 +1,8 @@
+import java.util.Iterator;
 import java.util.List;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 /**
  * Implements MapADT using an instance of java.util.HashMap.
@@ -66,6 +68,13 @@ public class PlaceholderMap<KeyType, ValueType> implements MapADT<KeyType, Value
         throw new UnsupportedOperationException("PlaceholderMap does not support the .getKeys() method");
     }
 
+    @Override
+    public Iterator<KeyType> iterator() {
+        return baseMap.keySet().iterator();
+    }
 
+    @Override
+    public void forEachEntry(BiConsumer<? super KeyType, ? super ValueType> action) {
+        baseMap.forEach(action);
+    }
 }
-
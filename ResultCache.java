@@ -0,0 +1,347 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * A size-bounded cache of computed results, such as shortest paths, that is
+ * safe to share between threads. Once the cache is full, adding a result
+ * evicts another one, chosen by one of these policies:
+ * <ul>
+ * <li>LRU evicts the result that was used least recently.</li>
+ * <li>LFU evicts the result that was used least often, and among those the
+ * one that was used least recently.</li>
+ * <li>TINY_LFU (W-TinyLFU) first admits new results into a small LRU window.
+ * Results leaving that window only displace a result from the main area when
+ * they have been requested more often, as estimated by a count-min sketch
+ * whose counts are halved periodically so that old popularity fades. The main
+ * area is a segmented LRU, where results that are used a second time are
+ * protected from being evicted by results used only once.</li>
+ * </ul>
+ * Every method holds this cache's lock, since looking up a result also
+ * reorders the entries that the policies evict from.
+ *
+ * @param <K> the type of key that results are looked up by
+ * @param <V> the type of result that is cached
+ */
+public class ResultCache<K, V> {
+
+    /**
+     * The ways that a full cache can choose which result to evict.
+     */
+    public enum Policy { LRU, LFU, TINY_LFU }
+
+    private final int capacity;
+    private final Policy policy;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    // LRU keeps every entry here, and TINY_LFU keeps its window here,
+    // both ordered from least to most recently used
+    private final LinkedHashMap<K, V> recent = new LinkedHashMap<>(16, 0.75f, true);
+
+    // LFU keeps every entry here, along with how often each was used, and
+    // groups keys by that count in the order they reached it
+    private final HashMap<K, V> values = new HashMap<>();
+    private final HashMap<K, Integer> useCounts = new HashMap<>();
+    private final HashMap<Integer, LinkedHashSet<K>> keysByCount = new HashMap<>();
+    private int minCount = 0;
+
+    // TINY_LFU keeps its main area in these two segments, which are ordered
+    // from least to most recently used
+    private final LinkedHashMap<K, V> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, V> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+    private final int windowCapacity;
+    private final int protectedCapacity;
+    private final FrequencySketch sketch;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the most results that this cache may hold
+     * @param policy   how a full cache chooses the result to evict
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public ResultCache(int capacity, Policy policy) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        this.capacity = capacity;
+        this.policy = policy;
+        // W-TinyLFU's usual split: 1% window, and 80% of the rest protected
+        this.windowCapacity = Math.max(1, capacity / 100);
+        this.protectedCapacity = (capacity - windowCapacity) * 4 / 5;
+        this.sketch = policy == Policy.TINY_LFU ? new FrequencySketch(capacity) : null;
+    }
+
+    /**
+     * Looks up the result stored for a key, which counts as a use of it.
+     *
+     * @param key the key to look up
+     * @return the result stored for key, or null if there is none
+     */
+    public synchronized V get(K key) {
+        V value = null;
+        switch (policy) {
+            case LRU:
+                value = recent.get(key);
+                break;
+            case LFU:
+                value = values.get(key);
+                if (value != null)
+                    countUse(key);
+                break;
+            case TINY_LFU:
+                sketch.increment(key);
+                value = getTinyLfu(key);
+                break;
+        }
+        if (value == null)
+            misses++;
+        else
+            hits++;
+        return value;
+    }
+
+    /**
+     * Stores the result for a key, evicting another result if this cache is
+     * full. A result that is already stored for key is replaced.
+     *
+     * @param key   the key to store the result under
+     * @param value the result to store, which must not be null
+     */
+    public synchronized void put(K key, V value) {
+        switch (policy) {
+            case LRU:
+                recent.put(key, value);
+                if (recent.size() > capacity) {
+                    Iterator<K> eldest = recent.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions++;
+                }
+                break;
+            case LFU:
+                putLfu(key, value);
+                break;
+            case TINY_LFU:
+                putTinyLfu(key, value);
+                break;
+        }
+    }
+
+    /**
+     * Removes every result from this cache, such as when the data that they
+     * were computed from changes. The hit, miss, and eviction counts are kept.
+     */
+    public synchronized void clear() {
+        recent.clear();
+        values.clear();
+        useCounts.clear();
+        keysByCount.clear();
+        minCount = 0;
+        probation.clear();
+        protectedSegment.clear();
+        if (sketch != null)
+            sketch.clear();
+    }
+
+    /**
+     * Retrieves the number of results currently stored.
+     *
+     * @return the number of results in this cache
+     */
+    public synchronized int size() {
+        return recent.size() + values.size() + probation.size() + protectedSegment.size();
+    }
+
+    /**
+     * Retrieves the number of lookups that found a stored result.
+     *
+     * @return the number of hits since this cache was created
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of lookups that did not find a stored result.
+     *
+     * @return the number of misses since this cache was created
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Retrieves the number of results that were removed to make room for
+     * others, or that were turned away by W-TinyLFU's admission check.
+     *
+     * @return the number of evictions since this cache was created
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Describes this cache's policy, size, and counts, for logging.
+     *
+     * @return a string listing the hits, misses, and evictions
+     */
+    @Override
+    public synchronized String toString() {
+        return policy + " cache: size=" + size() + "/" + capacity + " hits=" + hits + " misses="
+                + misses + " evictions=" + evictions;
+    }
+
+    // moves an LFU key from the group of its old use count to the next one
+    private void countUse(K key) {
+        int count = useCounts.get(key);
+        LinkedHashSet<K> group = keysByCount.get(count);
+        group.remove(key);
+        if (group.isEmpty()) {
+            keysByCount.remove(count);
+            if (minCount == count)
+                minCount = count + 1;
+        }
+        useCounts.put(key, count + 1);
+        keysByCount.computeIfAbsent(count + 1, c -> new LinkedHashSet<>()).add(key);
+    }
+
+    // stores a result under LFU, first evicting the least often used one
+    private void putLfu(K key, V value) {
+        if (values.containsKey(key)) {
+            values.put(key, value);
+            countUse(key);
+            return;
+        }
+        if (values.size() >= capacity) {
+            LinkedHashSet<K> group = keysByCount.get(minCount);
+            K victim = group.iterator().next();
+            group.remove(victim);
+            if (group.isEmpty())
+                keysByCount.remove(minCount);
+            values.remove(victim);
+            useCounts.remove(victim);
+            evictions++;
+        }
+        values.put(key, value);
+        useCounts.put(key, 1);
+        keysByCount.computeIfAbsent(1, c -> new LinkedHashSet<>()).add(key);
+        minCount = 1;
+    }
+
+    // looks up a W-TinyLFU result, promoting it when it is used on probation
+    private V getTinyLfu(K key) {
+        V value = recent.get(key);
+        if (value != null)
+            return value;
+        value = protectedSegment.get(key);
+        if (value != null)
+            return value;
+        value = probation.remove(key);
+        if (value != null) {
+            protectedSegment.put(key, value);
+            // the protected segment's least recently used entry goes back on probation
+            if (protectedSegment.size() > protectedCapacity) {
+                Iterator<Map.Entry<K, V>> eldest = protectedSegment.entrySet().iterator();
+                Map.Entry<K, V> demoted = eldest.next();
+                eldest.remove();
+                probation.put(demoted.getKey(), demoted.getValue());
+            }
+        }
+        return value;
+    }
+
+    // stores a W-TinyLFU result in the window, then admits whatever leaves
+    // the window into the main area only if it is more popular than the entry
+    // that it would evict
+    private void putTinyLfu(K key, V value) {
+        if (protectedSegment.containsKey(key)) {
+            protectedSegment.put(key, value);
+            return;
+        }
+        if (probation.containsKey(key)) {
+            probation.put(key, value);
+            return;
+        }
+        recent.put(key, value);
+        if (recent.size() <= windowCapacity)
+            return;
+
+        Iterator<Map.Entry<K, V>> eldest = recent.entrySet().iterator();
+        Map.Entry<K, V> candidate = eldest.next();
+        eldest.remove();
+        if (probation.size() + protectedSegment.size() < capacity - windowCapacity) {
+            probation.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        LinkedHashMap<K, V> segment = probation.isEmpty() ? protectedSegment : probation;
+        Iterator<K> victims = segment.keySet().iterator();
+        K victim = victims.hasNext() ? victims.next() : null;
+        if (victim != null && sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            victims.remove();
+            probation.put(candidate.getKey(), candidate.getValue());
+        }
+        // either the victim was replaced, or the candidate was turned away
+        evictions++;
+    }
+
+    /**
+     * A count-min sketch that estimates how often each key was requested,
+     * using four small counters per key instead of remembering every key.
+     * Once it has counted ten times as many requests as the cache can hold,
+     * every counter is halved so that keys which stop being requested lose
+     * their popularity.
+     */
+    private static class FrequencySketch {
+        private static final int MAX_COUNT = 15;
+        private final int[][] counters = new int[4][];
+        private final int mask;
+        private final int sampleSize;
+        private int additions = 0;
+
+        private FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            for (int row = 0; row < counters.length; row++)
+                counters[row] = new int[width];
+            this.mask = width - 1;
+            this.sampleSize = 10 * capacity;
+        }
+
+        // spreads the key's hash differently for each of the four rows
+        private int index(Object key, int row) {
+            int hash = key.hashCode() * (0x9E3779B9 + 2 * row);
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        private void increment(Object key) {
+            for (int row = 0; row < counters.length; row++) {
+                int i = index(key, row);
+                if (counters[row][i] < MAX_COUNT)
+                    counters[row][i]++;
+            }
+            if (++additions == sampleSize) {
+                for (int[] row : counters)
+                    for (int i = 0; i < row.length; i++)
+                        row[i] >>>= 1;
+                additions /= 2;
+            }
+        }
+
+        private int frequency(Object key) {
+            int min = MAX_COUNT;
+            for (int row = 0; row < counters.length; row++)
+                min = Math.min(min, counters[row][index(key, row)]);
+            return min;
+        }
+
+        private void clear() {
+            for (int[] row : counters)
+                Arrays.fill(row, 0);
+            additions = 0;
+        }
+    }
+}
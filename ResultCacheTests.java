@@ -0,0 +1,62 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests ResultCache directly, rather than through the backend that caches
+ * its results in it.
+ */
+public class ResultCacheTests {
+    /**
+     * Tests that an LRU cache removes the result that was used longest ago
+     * once it is full
+     */
+    @Test
+    public void resultCacheTest1() {
+        ResultCache<String, Integer> lru = new ResultCache<>(2, ResultCache.Policy.LRU);
+        lru.put("a", 1);
+        lru.put("b", 2);
+        lru.get("a");
+        lru.put("c", 3);
+        assertEquals(Integer.valueOf(1), lru.get("a"));
+        assertNull(lru.get("b"));
+        assertEquals(1, lru.getEvictions());
+    }
+
+    /**
+     * Tests that an LFU cache removes the result that was used the fewest
+     * times once it is full
+     */
+    @Test
+    public void resultCacheTest2() {
+        ResultCache<String, Integer> lfu = new ResultCache<>(2, ResultCache.Policy.LFU);
+        lfu.put("a", 1);
+        lfu.put("b", 2);
+        lfu.get("b");
+        lfu.get("a");
+        lfu.get("a");
+        lfu.put("c", 3);
+        assertNull(lfu.get("b"));
+        assertEquals(Integer.valueOf(1), lfu.get("a"));
+        assertEquals(Integer.valueOf(3), lfu.get("c"));
+    }
+
+    /**
+     * Tests that a W-TinyLFU cache does not let results that were only
+     * requested once push out a result that is requested often
+     */
+    @Test
+    public void resultCacheTest3() {
+        ResultCache<String, Integer> tinyLfu = new ResultCache<>(10, ResultCache.Policy.TINY_LFU);
+        for (int i = 0; i < 5; i++) {
+            if (tinyLfu.get("popular") == null)
+                tinyLfu.put("popular", 0);
+        }
+        for (int i = 0; i < 100; i++) {
+            if (tinyLfu.get("once" + i) == null)
+                tinyLfu.put("once" + i, i);
+        }
+        assertEquals(Integer.valueOf(0), tinyLfu.get("popular"));
+        assertTrue(tinyLfu.size() <= 10);
+    }
+}
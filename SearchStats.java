@@ -0,0 +1,66 @@
+/**
+ * This class counts the priority queue operations performed by one shortest
+ * path search. A pop is stale when it removes an entry for a node that was
+ * already settled through a cheaper path, so comparing stale pops to pushes
+ * shows how much of the queue held paths that could never be used.
+ */
+public class SearchStats {
+    private int pushes = 0;
+    private int pops = 0;
+    private int stalePops = 0;
+
+    /**
+     * Records that an entry was added to the priority queue.
+     */
+    void recordPush() {
+        pushes++;
+    }
+
+    /**
+     * Records that an entry was removed from the priority queue.
+     *
+     * @param stale true when that entry's node had already been settled
+     */
+    void recordPop(boolean stale) {
+        pops++;
+        if (stale)
+            stalePops++;
+    }
+
+    /**
+     * Retrieves the number of entries added to the priority queue.
+     *
+     * @return the number of pushes during this search
+     */
+    public int getPushes() {
+        return pushes;
+    }
+
+    /**
+     * Retrieves the number of entries removed from the priority queue.
+     *
+     * @return the number of pops during this search
+     */
+    public int getPops() {
+        return pops;
+    }
+
+    /**
+     * Retrieves the number of removed entries whose node was already settled.
+     *
+     * @return the number of stale pops during this search
+     */
+    public int getStalePops() {
+        return stalePops;
+    }
+
+    /**
+     * Describes these counts, for logging.
+     *
+     * @return a string listing the pushes, pops, and stale pops
+     */
+    @Override
+    public String toString() {
+        return "pushes=" + pushes + " pops=" + pops + " stalePops=" + stalePops;
+    }
+}
@@ -0,0 +1,73 @@
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class stores everything known about one shortest path: the data of
+ * the nodes along it, the weight of each edge (or leg) between consecutive
+ * nodes, and the total cost of the path. All three are produced together by a
+ * single search, so callers never need to search again to find the times.
+ *
+ * @param <NodeType> the data type stored at each node along the path
+ */
+public class ShortestPath<NodeType> {
+    private final List<NodeType> nodes;
+    private final List<Double> legs;
+    private final double cost;
+
+    /**
+     * Creates a shortest path from the results of a search.
+     *
+     * @param nodes the data of the nodes along the path, from start to end
+     * @param legs  the weight of the edge between each two consecutive nodes,
+     *              so that this list has one fewer element than nodes
+     * @param cost  the total cost of the path
+     */
+    public ShortestPath(List<NodeType> nodes, List<Double> legs, double cost) {
+        this.nodes = Collections.unmodifiableList(nodes);
+        this.legs = Collections.unmodifiableList(legs);
+        this.cost = cost;
+    }
+
+    /**
+     * Creates an empty result, which represents that no path exists.
+     */
+    public ShortestPath() {
+        this(List.of(), List.of(), 0.0);
+    }
+
+    /**
+     * Retrieves the data of the nodes along this path.
+     *
+     * @return list of node data from the start to the end of this path
+     */
+    public List<NodeType> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Retrieves the weight of each edge along this path.
+     *
+     * @return list of edge weights, in the order they are traversed
+     */
+    public List<Double> getLegs() {
+        return legs;
+    }
+
+    /**
+     * Retrieves the total cost of this path.
+     *
+     * @return the sum of the weights of the edges along this path
+     */
+    public double getCost() {
+        return cost;
+    }
+
+    /**
+     * Checks whether this result represents that no path exists.
+     *
+     * @return true if there are no nodes along this path, false otherwise
+     */
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+}
@@ -5,12 +5,37 @@ import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.File;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Scanner;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 /**
@@ -26,12 +51,58 @@ import java.util.stream.Stream;
  *     compile WebApp in that location
  *     there is no need to run your sever, the provided index.cgi handles this 
  * Then visit through browser via https://cs400-web.cs.wisc.edu/CS_LOGIN/
+ *
+ * To keep the graph loaded between cgi requests on the same machine:
+ *     run daemon using command: java WebApp --daemon webapp.sock GROUP
+ * Then index.cgi forwards each query to that daemon over the unix domain
+ * socket webapp.sock, instead of starting a new program for every request.
+ * Only the user running the daemon and members of GROUP can connect to the
+ * socket, so GROUP should be a group that the web server runs index.cgi as,
+ * and that this user belongs to. Without GROUP only this user can connect.
  */
 public class WebApp {
+    // graph, backend, and frontend shared by every request in server mode:
+    // these are built once at startup and only ever read by handler threads.
+    // When the dot file changes, a new frontend is built in the background
+    // and swapped in here, so requests already running keep the old one.
+    private static volatile FrontendInterface sharedFrontend = null;
+    // largest map whose walking times the server precomputes between every
+    // pair of locations, which takes 16*n*n bytes outside of the heap
+    private static final int MATRIX_NODE_LIMIT = 4000;
+    // number of shortest paths that the server caches for larger maps
+    private static final int PATH_CACHE_SIZE = 1024;
+    // number of sources whose complete shortest path trees the server keeps
+    // for larger maps, each taking under a hundred bytes per location
+    private static final int TREE_CACHE_SIZE = 16;
+    // longest query line that the daemon reads from a client, which is about
+    // as long as the request lines that web servers accept by default
+    private static final int MAX_QUERY_BYTES = 8192;
+    // time a daemon client has to send its query line before it is dropped
+    private static final long QUERY_TIMEOUT_MILLIS = 5000;
+    // contents of template.html, keyed by the modification time they were
+    // read at, so that long running modes only read it again after it changes
+    private static volatile Map.Entry<Long,String> template = null;
+
     public static void main(String[] args) throws IOException {
 	// expects the port number as a command line argument to this program
 	// or if a non-numeric argument is passed treat this like the query
 	// part of a requst URI and display response through standard out
+	if((args.length == 2 || args.length == 3) && args[0].equals("--daemon")) {
+	    // answers queries forwarded by index.cgi until it is killed
+	    serveDaemon(args[1],args.length == 3 ? args[2] : null);
+	    return;
+	}
+	if(args.length == 3 && args[0].equals("--client")) {
+	    // the query that index.cgi forwards when nc cannot reach the daemon
+	    forwardToDaemon(args[1],args[2]);
+	    return;
+	}
+	if(args.length == 3 && args[0].equals("--snapshot")) {
+	    // writes a route store for a dot file ahead of time, which index.cgi
+	    // would otherwise write for the first request after a change
+	    writeRouteStore(args[1],args[2],System.out::println);
+	    return;
+	}
 	if(args.length != 1) {
 	    throw new IllegalArgumentException("You must pass a command line" +
 					       " argument representing the port that this servers should be" +
@@ -48,6 +119,11 @@ public class WebApp {
 	    return;
 	}
 				
+	// load campus.dot a single time, before any requests can be accepted
+	sharedFrontend = createServerFrontend("./campus.dot");
+	// and reload it in the background whenever that file is modified
+	watchGraphData("./campus.dot");
+
 	// configure and start server on this port, responding in this way
 	InetSocketAddress address = new InetSocketAddress(portNumber);
 	HttpServer server = HttpServer.create(address,8);
@@ -68,8 +144,8 @@ public class WebApp {
 							  exchange.getRequestURI().getQuery());
 	    System.out.println("Query includes args: "+keyValuePairs);
 	    
-	    // create backend and frontend objects to respond to this request
-	    FrontendInterface frontend = createWorkingFrontend("./campus.dot");
+	    // respond using the frontend that was created when the server started
+	    FrontendInterface frontend = sharedFrontend;
 	    // compute answer to user's requested problem based on query args:
 	    String response = generateResponseHTML(keyValuePairs,frontend);
 	    // generate HTML prompts for user for make next requests
@@ -94,12 +170,181 @@ public class WebApp {
 	}
     }
 
+    // loads campus.dot like the http server does, then answers the queries
+    // that clients send over a unix domain socket: each client writes one
+    // query string on a line, and reads back the complete html page until
+    // the daemon closes the connection. Connecting takes write access to the
+    // socket, which is given to this user, and to the members of group when
+    // group is not null. The daemon runs until it is killed, and then
+    // removes the socket
+    private static void serveDaemon(String socketFile, String group) throws IOException {
+	UnixDomainSocketAddress address = UnixDomainSocketAddress.of(socketFile);
+	Path path = address.getPath();
+	// a socket file is left behind by a daemon that has exited, and binding
+	// fails until it is removed, but one that a daemon listens on is kept
+	if(isListening(address))
+	    throw new IOException("Another daemon is already listening on "+socketFile);
+	Files.deleteIfExists(path);
+	ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+	server.bind(address);
+	if(group != null)
+	    Files.setAttribute(path,"posix:group",path.getFileSystem()
+			       .getUserPrincipalLookupService().lookupPrincipalByGroupName(group));
+	Files.setPosixFilePermissions(path,PosixFilePermissions.fromString(
+		group == null ? "rw-------" : "rw-rw----"));
+
+	ExecutorService workers = Executors.newFixedThreadPool(
+		Runtime.getRuntime().availableProcessors());
+	// disconnects clients that take too long to send their query
+	ScheduledExecutorService deadlines = Executors.newSingleThreadScheduledExecutor();
+	// stops accepting queries, lets the ones being answered finish, and
+	// removes the socket when the daemon is killed or fails to start
+	Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+		try {
+		    server.close();
+		    Files.deleteIfExists(path);
+		    deadlines.shutdownNow();
+		    workers.shutdown();
+		    workers.awaitTermination(5,TimeUnit.SECONDS);
+		} catch(IOException | InterruptedException e) {
+		    System.out.println("Unable to stop daemon cleanly: "+e);
+		}
+	    },"daemon shutdown"));
+
+	// clients that connect while the graph loads wait to be accepted
+	sharedFrontend = createServerFrontend("./campus.dot");
+	watchGraphData("./campus.dot");
+	System.out.println("Listening for queries on "+socketFile);
+	while(true) {
+	    SocketChannel client;
+	    try { client = server.accept(); }
+	    catch(ClosedChannelException e) { return; } // closed on shutdown
+	    try { workers.execute(() -> daemonHandler(client,deadlines)); }
+	    catch(RejectedExecutionException e) { client.close(); }
+	}
+    }
+
+    // checks whether a daemon accepts connections on this address
+    private static boolean isListening(UnixDomainSocketAddress address) {
+	try {
+	    SocketChannel.open(address).close();
+	    return true;
+	} catch(IOException e) {
+	    return false;
+	}
+    }
+
+    // answers the query that one client of the daemon sends. A client that
+    // does not send its whole query line in time is disconnected, so that
+    // it cannot hold one of the daemon's few workers forever
+    private static void daemonHandler(SocketChannel client, ScheduledExecutorService deadlines) {
+	try(client) {
+	    ScheduledFuture<?> deadline = deadlines.schedule(() -> {
+		    try { client.close(); } // wakes the read below with an exception
+		    catch(IOException e) {} // nothing is left to clean up
+		},QUERY_TIMEOUT_MILLIS,TimeUnit.MILLISECONDS);
+	    String query;
+	    try {
+		query = readQuery(new BufferedInputStream(Channels.newInputStream(client)));
+	    } finally {
+		deadline.cancel(false);
+	    }
+	    // isListening connects without sending a query, so nothing is answered
+	    if(query == null) return;
+	    String html;
+	    try {
+		html = composeResponse(query,sharedFrontend);
+	    } catch(Exception e) {
+		// reported to the client the same way handleSingleResponse does
+		System.out.println("Exception Thrown: "+e.toString());
+		e.printStackTrace();
+		html = "Exception Thrown: "+e.toString();
+	    }
+	    OutputStream out = Channels.newOutputStream(client);
+	    out.write((html+"\n").getBytes(StandardCharsets.UTF_8));
+	    out.flush();
+	} catch(IOException e) {
+	    // the client went away, which only loses its own response
+	    System.out.println("Unable to answer daemon client: "+e);
+	}
+    }
+
+    // reads the query line that a daemon client sends, without its line
+    // break, or returns null when the client closes without sending anything
+    private static String readQuery(InputStream in) throws IOException {
+	ByteArrayOutputStream line = new ByteArrayOutputStream();
+	int b;
+	while((b = in.read()) != -1 && b != '\n') {
+	    if(line.size() == MAX_QUERY_BYTES)
+		throw new IOException("Query is longer than "+MAX_QUERY_BYTES+" bytes");
+	    line.write(b);
+	}
+	if(b == -1 && line.size() == 0) return null;
+	String query = line.toString(StandardCharsets.UTF_8);
+	return query.endsWith("\r") ? query.substring(0,query.length()-1) : query;
+    }
+
+    // sends a query to the daemon listening on socketFile, and copies the
+    // page it answers with to standard out. When no daemon is listening, the
+    // query is answered in this program instead, like without a daemon
+    private static void forwardToDaemon(String socketFile, String query) {
+	SocketChannel channel;
+	try {
+	    channel = SocketChannel.open(UnixDomainSocketAddress.of(socketFile));
+	} catch(IOException e) {
+	    handleSingleResponse(query);
+	    return;
+	}
+	try(channel) {
+	    channel.write(StandardCharsets.UTF_8.encode(query+"\n"));
+	    Channels.newInputStream(channel).transferTo(System.out);
+	    System.out.flush();
+	} catch(IOException e) {
+	    System.out.println("Exception Thrown: "+e.toString());
+	    e.printStackTrace();
+	}
+    }
+
+    // starts a daemon thread that rebuilds the shared frontend from filename
+    // each time that file changes, then replaces the old one in a single write
+    private static void watchGraphData(String filename) throws IOException {
+	Path file = Paths.get(filename).toAbsolutePath().normalize();
+	WatchService watcher = FileSystems.getDefault().newWatchService();
+	file.getParent().register(watcher,
+				  StandardWatchEventKinds.ENTRY_CREATE,
+				  StandardWatchEventKinds.ENTRY_MODIFY);
+	Thread thread = new Thread(() -> {
+		while(true) {
+		    WatchKey key;
+		    try { key = watcher.take(); }
+		    catch(InterruptedException e) { return; }
+		    boolean changed = false;
+		    for(WatchEvent<?> event : key.pollEvents())
+			if(file.getFileName().equals(event.context()))
+			    changed = true;
+		    key.reset();
+		    if(!changed) continue;
+		    try {
+			// the old frontend keeps serving requests while this runs
+			sharedFrontend = createServerFrontend(file.toString());
+			System.out.println("Reloaded graph data from " + file);
+		    } catch(IOException e) {
+			// a partially written file is ignored until the next change
+			System.out.println("Unable to reload " + file + ": " + e);
+		    }
+		}
+	    }, "graph data watcher");
+	thread.setDaemon(true);
+	thread.start();
+    }
+
     // reads key value pairs from the query string of a URI into a map
     private static Map<String,String> parseQuery(String query) {
 	HashMap<String,String> map = new HashMap<>();
 	if(query != null && query.contains("="))
 	    Stream.of(query.split("&")).forEach(arg -> {
-		    String[] pair = arg.split("=");
+		    // keep empty values, such as an optional time left blank
+		    String[] pair = arg.split("=",-1);
 		    if(pair.length != 2)
 			throw new IllegalArgumentException("Unable to split "+
 							   "arg: " + arg+" into a key value pair around a "+
@@ -113,8 +358,72 @@ public class WebApp {
     private static FrontendInterface createWorkingFrontend(String filename) throws IOException {
 	GraphADT<String,Double> graph = new DijkstraGraph<>();
 	BackendInterface backend = new Backend(graph);
-	backend.loadGraphData(filename);			
-	FrontendInterface frontend = new Frontend(backend);
+	// the frontend loads this file into the backend, so it is only read once
+	FrontendInterface frontend = new Frontend(backend,filename);
+	if(backend.getListOfAllLocations().isEmpty())
+	    throw new IOException("No graph data could be loaded from "+filename);
+	return frontend;
+    }
+
+    // parses a dot file and writes its graph to a binary snapshot file, along
+    // with every shortest path when the map is small enough to precompute
+    // them, and passes reports on both steps to log unless it is null
+    private static void writeRouteStore(String dotFile, String storeFile, Consumer<String> log) throws IOException {
+	Backend backend = new Backend(new DijkstraGraph<>(),MATRIX_NODE_LIMIT,log);
+	backend.loadGraphData(dotFile);
+	backend.writeSnapshot(storeFile);
+	if(log != null) {
+	    log.accept(backend.getLoadReport());
+	    log.accept("Wrote route store for "+dotFile+" to "+storeFile);
+	}
+    }
+
+    // creates a frontend for a single request, which maps the route store
+    // and looks routes up in it instead of building a graph. The first
+    // request after the dot file changes writes a new route store first,
+    // and every process that is racing to do so moves a complete one into
+    // place, so readers always map either the old store or a new one
+    private static FrontendInterface createRouteStoreFrontend(String dotFile, String storeFile) throws IOException {
+	if(!GraphSnapshot.isCurrent(storeFile,dotFile)) {
+	    try {
+		writeRouteStore(dotFile,storeFile,null);
+	    } catch(IOException e) {
+		// a request that may not write the store still gets an answer,
+		// from the dot file itself
+		return createWorkingFrontend(dotFile);
+	    }
+	}
+	Backend backend = new Backend();
+	FrontendInterface frontend = new Frontend(backend,storeFile);
+	if(backend.getListOfAllLocations().isEmpty())
+	    throw new IOException("No graph data could be loaded from "+storeFile);
+	return frontend;
+    }
+
+    // creates a working frontend for a long running server, which precomputes
+    // every walking time for small maps, and otherwise prepares landmarks so
+    // that its point-to-point searches use ALT mode. It also keeps the
+    // shortest path trees grown for closest destination and walking time
+    // requests, which paths from the same start are then read from, but no
+    // tree is grown just to answer a path. Changes to the graph discard both
+    // the landmarks and the trees
+    private static FrontendInterface createServerFrontend(String filename) throws IOException {
+	// open addressing maps keep the server's searches from chasing list nodes
+	DijkstraGraph<String,Double> graph = new DijkstraGraph<>(OpenAddressingMap::new);
+	Backend backend = new Backend(graph,MATRIX_NODE_LIMIT,System.out::println);
+	FrontendInterface frontend = new Frontend(backend,filename);
+	if(graph.getNodeCount() == 0)
+	    throw new IOException("No graph data could be loaded from "+filename);
+	System.out.println(backend.getLoadReport());
+	// this preprocessing pays off over many requests, but not just one
+	if(!backend.isUsingDistanceMatrix()) {
+	    System.out.println(backend.setSearchMode(DijkstraGraph.SearchMode.ALT));
+	    // a few popular routes make up most requests, so keep those around
+	    backend.setPathCache(PATH_CACHE_SIZE,ResultCache.Policy.TINY_LFU);
+	    // a user who lists the destinations near a start then asks for
+	    // routes from it, which are read from the tree that listing grew
+	    graph.setTreeCacheSize(TREE_CACHE_SIZE);
+	}
 	return frontend;
     }
 
@@ -128,6 +437,18 @@ public class WebApp {
 								  keyValuePairs.get("start"),
 								  keyValuePairs.get("end")) + "</div>";
 	    // compute response for other request
+	} else if(keyValuePairs.containsKey("from") &&
+		  keyValuePairs.containsKey("time") &&
+		  !keyValuePairs.get("time").isBlank()) {
+	    // only search as far as the requested number of seconds
+	    String time = keyValuePairs.get("time").trim();
+	    try {
+		response += frontend.generateDestinationsWithinTimeResponseHTML(
+										keyValuePairs.get("from"),
+										Double.parseDouble(time)) + "</div>";
+	    } catch(NumberFormatException e) {
+		response += "<p>Invalid time: " + time + "</p></div>";
+	    }
 	} else if(keyValuePairs.containsKey("from")) {
 	    response += frontend.generateTenClosestDestinationsResponseHTML(
 									    keyValuePairs.get("from")) + "</div>";
@@ -143,16 +464,27 @@ public class WebApp {
 	String firstPrompt = "<div id=\"firstPrompt\">" +
 	    frontend.generateShortestPathPromptHTML() + "</div>";
 	String secondPrompt = "<div id=\"secondPrompt\">" +
-	    frontend.generateTenClosestDestinationsPromptHTML() + "</div>";
+	    frontend.generateTenClosestDestinationsPromptHTML() + "\n" +
+	    frontend.generateDestinationsWithinTimePromptHTML() + "</div>";
 	return firstPrompt + secondPrompt;
     }
 
     // compose reponse with prompts inside a complete html tree
     private static String composeHTML(String response, String prompts) throws IOException {
-	// read contents of template file into html string
-	String html = "";
-	Scanner in = new Scanner(new File("template.html"));
-	while(in.hasNextLine()) html += in.nextLine() + "\n";
+	// read contents of template file into html string, unless they were
+	// already read since the file was last modified
+	File file = new File("template.html");
+	Map.Entry<Long,String> cached = template;
+	if(cached == null || cached.getKey() != file.lastModified()) {
+	    long modified = file.lastModified();
+	    String contents = "";
+	    Scanner in = new Scanner(file);
+	    while(in.hasNextLine()) contents += in.nextLine() + "\n";
+	    in.close();
+	    cached = Map.entry(modified,contents);
+	    template = cached;
+	}
+	String html = cached.getValue();
 
 	// replace placeholders for response and prompts
 	html = html.replaceFirst("<!-- RESPONSE GOES HERE -->",response);
@@ -166,19 +498,9 @@ public class WebApp {
     // the method below, and then displaying a response to standard out.
     public static void handleSingleResponse(String query) {
 	try {
-	    query = URLDecoder.decode(query, StandardCharsets.UTF_8);
-	    Map<String,String> keyValuePairs = parseQuery(query);
-	    
 	    // create backend and frontend objects to respond to this request
-	    FrontendInterface frontend = createWorkingFrontend("./campus.dot");
-	    // compute answer to user's requested problem based on query args:
-	    String response = generateResponseHTML(keyValuePairs,frontend);
-	    // generate HTML prompts for user for make next requests
-	    String prompts = generatePromptHTML(frontend);
-	    // compose response and prompts into a complete html template
-	    String html = composeHTML(response,prompts);
-		
-	    System.out.println(html);
+	    FrontendInterface frontend = createRouteStoreFrontend("./campus.dot","./campus.graph");
+	    System.out.println(composeResponse(query,frontend));
 						
 	    // unless something goes wrong, in which case report problem
 	} catch (Exception e) {
@@ -186,4 +508,17 @@ public class WebApp {
 	    e.printStackTrace();
 	}
     }
+
+    // composes the complete html page that answers a query string, which is
+    // still url encoded like the QUERY_STRING that index.cgi is passed
+    private static String composeResponse(String query, FrontendInterface frontend) throws IOException {
+	query = URLDecoder.decode(query, StandardCharsets.UTF_8);
+	Map<String,String> keyValuePairs = parseQuery(query);
+	// compute answer to user's requested problem based on query args:
+	String response = generateResponseHTML(keyValuePairs,frontend);
+	// generate HTML prompts for user for make next requests
+	String prompts = generatePromptHTML(frontend);
+	// compose response and prompts into a complete html template
+	return composeHTML(response,prompts);
+    }
 }
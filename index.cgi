@@ -2,4 +2,13 @@
 
 echo "Content-type: text/html"
 echo ""
-java WebApp "${QUERY_STRING:-no:args}" 2>&1
+# when a daemon was started with: java WebApp --daemon webapp.sock GROUP
+# and this script runs as a member of GROUP,
+# the query is forwarded to it over that socket, without starting java
+SOCKET="${CAMPUS_NAVIGATOR_SOCKET:-./webapp.sock}"
+QUERY="${QUERY_STRING:-no:args}"
+if [ -S "$SOCKET" ] && command -v nc >/dev/null 2>&1; then
+    printf '%s\n' "$QUERY" | nc -U "$SOCKET" 2>/dev/null && exit 0
+fi
+# otherwise java forwards it, or answers it alone if no daemon is running
+java WebApp --client "$SOCKET" "$QUERY" 2>&1